@@ -0,0 +1,74 @@
+package com.rnfs2;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Token bucket shared by the transfers it throttles. The rate can be changed at any time and applies
+ * from the next acquire on, a rate of 0 or less disables throttling.
+ */
+public class BandwidthLimiter {
+  // Upper bound for a single sleep so aborts and rate changes are picked up quickly.
+  private static final long MAX_SLEEP_MILLIS = 100;
+  private static final long MIN_BURST_BYTES = 16 * 1024;
+
+  private long bytesPerSecond;
+  private double tokens;
+  private long lastRefill;
+
+  public BandwidthLimiter(long bytesPerSecond) {
+    setRate(bytesPerSecond);
+  }
+
+  public synchronized void setRate(long bytesPerSecond) {
+    // Credit the time since the last refill at the old rate first, otherwise a rate change would drop it.
+    refill();
+    this.bytesPerSecond = bytesPerSecond;
+    this.tokens = Math.min(tokens, getBurst());
+  }
+
+  public synchronized long getRate() {
+    return bytesPerSecond;
+  }
+
+  /**
+   * Takes count bytes from the bucket, blocking until the bucket has refilled enough to cover them.
+   * Reads larger than the bucket are allowed and simply leave it in debt for a while.
+   *
+   * @return false when aborted while waiting
+   */
+  public boolean acquire(int count, AtomicBoolean abort) throws InterruptedException {
+    long waitMillis = reserve(count);
+    while (waitMillis > 0) {
+      if (abort.get()) return false;
+      Thread.sleep(Math.min(waitMillis, MAX_SLEEP_MILLIS));
+      waitMillis = reserve(0);
+    }
+    return true;
+  }
+
+  private synchronized long reserve(int count) {
+    if (bytesPerSecond <= 0) {
+      tokens = 0;
+      return 0;
+    }
+
+    refill();
+    tokens -= count;
+
+    return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * 1000 / bytesPerSecond);
+  }
+
+  private void refill() {
+    long now = SystemClock.elapsedRealtime();
+    if (bytesPerSecond > 0 && lastRefill > 0) {
+      tokens = Math.min(tokens + (double) (now - lastRefill) * bytesPerSecond / 1000, getBurst());
+    }
+    lastRefill = now;
+  }
+
+  private long getBurst() {
+    return Math.max(bytesPerSecond / 4, MIN_BURST_BYTES);
+  }
+}
@@ -0,0 +1,371 @@
+package com.rnfs2;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.StatFs;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Manages named regions of the caches directory. Every region keeps an index of its entries (key, size
+ * and last access) in LRU order, persisted to a small binary file, and evicts the least recently used
+ * entries in the background once it goes over its byte or entry limit, when the app is asked to trim
+ * memory or when the device runs low on storage.
+ */
+class CacheManager implements ComponentCallbacks2 {
+  private static final String DIRECTORY_NAME = "RNFS2Cache";
+  private static final String INDEX_FILE_NAME = ".index";
+  private static final int INDEX_VERSION = 1;
+  // Regions are trimmed to this share of their limits on memory pressure or low storage.
+  private static final double TRIM_RATIO = 0.5;
+  private static final long LOW_STORAGE_BYTES = 100 * 1024 * 1024;
+
+  static class Entry {
+    final String key;
+    final String fileName;
+    long size;
+    long lastAccess;
+
+    Entry(String key, String fileName, long size, long lastAccess) {
+      this.key = key;
+      this.fileName = fileName;
+      this.size = size;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  static class Region {
+    final String name;
+    final File directory;
+    long maxBytes;
+    int maxEntries;
+    // Key -> entry, least recently used first.
+    final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    long totalBytes;
+    boolean dirty;
+    boolean writeScheduled;
+
+    Region(String name, File directory) {
+      this.name = name;
+      this.directory = directory;
+    }
+  }
+
+  private final File root;
+  private final Map<String, Region> regions = new HashMap<>();
+  // Eviction and index writes run one at a time off the bridge thread.
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  CacheManager(Context context) {
+    root = new File(context.getCacheDir(), DIRECTORY_NAME);
+  }
+
+  synchronized Region register(String name, long maxBytes, int maxEntries) throws IOException {
+    if (name.isEmpty() || name.contains("/") || name.startsWith(".")) {
+      throw new IllegalArgumentException("Invalid region name: " + name);
+    }
+
+    Region region = regions.get(name);
+    if (region == null) {
+      region = new Region(name, new File(root, name));
+      if (!region.directory.isDirectory() && !region.directory.mkdirs()) {
+        throw new IOException("Could not create cache region directory: " + region.directory);
+      }
+      loadIndex(region);
+      regions.put(name, region);
+    }
+    region.maxBytes = maxBytes;
+    region.maxEntries = maxEntries;
+    scheduleTrim(region, 1);
+    return region;
+  }
+
+  /**
+   * @return the path of the cached file, or null when key is not cached
+   */
+  synchronized String get(String regionName, String key) {
+    Region region = getRegion(regionName);
+    Entry entry = region.entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+
+    File file = new File(region.directory, entry.fileName);
+    if (!file.isFile()) {
+      // Removed behind our back, ie by the system clearing the cache.
+      region.entries.remove(key);
+      region.totalBytes -= entry.size;
+      region.dirty = true;
+      return null;
+    }
+
+    entry.lastAccess = System.currentTimeMillis();
+    region.dirty = true;
+    scheduleIndexWrite(region);
+    return file.getAbsolutePath();
+  }
+
+  /**
+   * Copies (or moves) source into the region under key, replacing a previous entry.
+   *
+   * @return the path of the cached file
+   */
+  String put(String regionName, String key, File source, boolean move) throws IOException {
+    Region region;
+    String fileName = getFileName(key);
+    synchronized (this) {
+      region = getRegion(regionName);
+    }
+
+    File dest = new File(region.directory, fileName);
+    File temp = new File(region.directory, fileName + "." + Thread.currentThread().getId() + ".tmp");
+    if (!(move && source.renameTo(temp))) {
+      RNFSManager.copyLocalFile(source, temp);
+      if (move && !source.delete()) {
+        Log.w("RNFS2", "Could not remove cache source: " + source);
+      }
+    }
+
+    synchronized (this) {
+      if (!temp.renameTo(dest)) {
+        temp.delete();
+        throw new IOException("Could not store cache entry: " + key);
+      }
+
+      Entry previous = region.entries.remove(key);
+      if (previous != null) {
+        region.totalBytes -= previous.size;
+      }
+      Entry entry = new Entry(key, fileName, dest.length(), System.currentTimeMillis());
+      region.entries.put(key, entry);
+      region.totalBytes += entry.size;
+      region.dirty = true;
+      scheduleTrim(region, 1);
+      return dest.getAbsolutePath();
+    }
+  }
+
+  synchronized boolean remove(String regionName, String key) {
+    Region region = getRegion(regionName);
+    Entry entry = region.entries.remove(key);
+    if (entry == null) {
+      return false;
+    }
+    new File(region.directory, entry.fileName).delete();
+    region.totalBytes -= entry.size;
+    region.dirty = true;
+    scheduleIndexWrite(region);
+    return true;
+  }
+
+  synchronized void clear(String regionName) {
+    Region region = getRegion(regionName);
+    for (Entry entry : region.entries.values()) {
+      new File(region.directory, entry.fileName).delete();
+    }
+    region.entries.clear();
+    region.totalBytes = 0;
+    region.dirty = true;
+    scheduleIndexWrite(region);
+  }
+
+  synchronized Region getRegion(String name) {
+    Region region = regions.get(name);
+    if (region == null) {
+      throw new IllegalArgumentException("Cache region is not registered: " + name);
+    }
+    return region;
+  }
+
+  /**
+   * Trims every region to ratio of its limits, ie on memory pressure.
+   */
+  synchronized void trimAll(double ratio) {
+    for (Region region : regions.values()) {
+      scheduleTrim(region, ratio);
+    }
+  }
+
+  void close() {
+    synchronized (this) {
+      for (Region region : regions.values()) {
+        scheduleIndexWrite(region);
+      }
+    }
+    executor.shutdown();
+  }
+
+  @Override
+  public void onTrimMemory(int level) {
+    if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimAll(TRIM_RATIO);
+    }
+  }
+
+  @Override
+  public void onLowMemory() {
+    trimAll(TRIM_RATIO);
+  }
+
+  @Override
+  public void onConfigurationChanged(Configuration newConfig) {}
+
+  private void scheduleTrim(final Region region, final double ratio) {
+    if (executor.isShutdown()) return;
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        trim(region, ratio);
+        writeIndex(region);
+      }
+    });
+  }
+
+  /**
+   * Writes the index in the background. Accesses in quick succession (ie a scrolling list) share a
+   * single write.
+   */
+  private void scheduleIndexWrite(final Region region) {
+    if (executor.isShutdown() || region.writeScheduled) return;
+    region.writeScheduled = true;
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        writeIndex(region);
+      }
+    });
+  }
+
+  private void trim(Region region, double ratio) {
+    synchronized (this) {
+      if (isLowOnStorage()) {
+        ratio = Math.min(ratio, TRIM_RATIO);
+      }
+
+      long maxBytes = (long) (region.maxBytes * ratio);
+      int maxEntries = (int) (region.maxEntries * ratio);
+      Iterator<Entry> iterator = region.entries.values().iterator();
+      while (iterator.hasNext() && ((region.maxBytes > 0 && region.totalBytes > maxBytes) || (region.maxEntries > 0 && region.entries.size() > maxEntries))) {
+        Entry eldest = iterator.next();
+        new File(region.directory, eldest.fileName).delete();
+        region.totalBytes -= eldest.size;
+        iterator.remove();
+        region.dirty = true;
+      }
+    }
+  }
+
+  private boolean isLowOnStorage() {
+    try {
+      return new StatFs(root.getAbsolutePath()).getAvailableBytes() < LOW_STORAGE_BYTES;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private void writeIndex(Region region) {
+    File index = new File(region.directory, INDEX_FILE_NAME);
+    File temp = new File(region.directory, INDEX_FILE_NAME + ".tmp");
+
+    synchronized (this) {
+      region.writeScheduled = false;
+      if (!region.dirty) return;
+      region.dirty = false;
+
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(INDEX_VERSION);
+        out.writeInt(region.entries.size());
+        // Iterating the map directly keeps the LRU order, get() would reorder it.
+        for (Entry entry : region.entries.values()) {
+          out.writeUTF(entry.key);
+          out.writeUTF(entry.fileName);
+          out.writeLong(entry.size);
+          out.writeLong(entry.lastAccess);
+        }
+      } catch (IOException e) {
+        region.dirty = true;
+        Log.e("RNFS2", "Failed to write cache index: " + e.getMessage());
+        return;
+      }
+      if (!temp.renameTo(index)) {
+        region.dirty = true;
+      }
+    }
+  }
+
+  private void loadIndex(Region region) {
+    File index = new File(region.directory, INDEX_FILE_NAME);
+    if (index.isFile()) {
+      readIndex(region, index);
+    }
+
+    // Files the index does not know about (ie written before a crash) can never be looked up again.
+    File[] files = region.directory.listFiles();
+    if (files == null) return;
+
+    Set<String> known = new HashSet<>();
+    for (Entry entry : region.entries.values()) {
+      known.add(entry.fileName);
+    }
+    for (File file : files) {
+      if (!file.getName().equals(INDEX_FILE_NAME) && !known.contains(file.getName())) {
+        file.delete();
+      }
+    }
+  }
+
+  private void readIndex(Region region, File index) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+      if (in.readInt() != INDEX_VERSION) {
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        Entry entry = new Entry(in.readUTF(), in.readUTF(), in.readLong(), in.readLong());
+        // Skip entries whose file was removed while the app was not running.
+        if (new File(region.directory, entry.fileName).isFile()) {
+          region.entries.put(entry.key, entry);
+          region.totalBytes += entry.size;
+        } else {
+          region.dirty = true;
+        }
+      }
+    } catch (IOException e) {
+      Log.e("RNFS2", "Failed to read cache index, starting empty: " + e.getMessage());
+      region.entries.clear();
+      region.totalBytes = 0;
+    }
+  }
+
+  private static String getFileName(String key) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      StringBuilder hex = new StringBuilder();
+      for (byte b : md.digest(key.getBytes("UTF-8"))) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException | IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
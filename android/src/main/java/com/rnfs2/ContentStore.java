@@ -0,0 +1,358 @@
+package com.rnfs2;
+
+import android.content.Context;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.StructStat;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A content-addressable store of files. Files are moved into a blob named after their SHA-256 hash, so
+ * identical files are kept once, and are materialized at their destinations as hard links to the blob
+ * (or as copies when the destination is on another volume). Every materialized path is a reference of
+ * its blob, and blobs without any live reference are removed by gc(). A blob that was just stored is
+ * kept for a grace period, so a gc() between store() and materialize() does not remove it.
+ */
+class ContentStore {
+  private static final String DIRECTORY_NAME = "RNFS2Store";
+  private static final String BLOBS_DIRECTORY_NAME = "blobs";
+  private static final String INDEX_FILE_NAME = ".index";
+  private static final int INDEX_VERSION = 2;
+  private static final long STORE_GRACE_PERIOD_MS = 60 * 60 * 1000;
+
+  static class Blob {
+    final String hash;
+    final long size;
+    // Last time the blob was stored, gc() keeps it without references until the grace period ends.
+    long storedAt;
+    // Materialized path -> whether it is a hard link to the blob.
+    final Map<String, Boolean> references = new LinkedHashMap<>();
+
+    Blob(String hash, long size, long storedAt) {
+      this.hash = hash;
+      this.size = size;
+      this.storedAt = storedAt;
+    }
+  }
+
+  static class StoreResult {
+    final String hash;
+    final long size;
+    final boolean deduplicated;
+
+    StoreResult(String hash, long size, boolean deduplicated) {
+      this.hash = hash;
+      this.size = size;
+      this.deduplicated = deduplicated;
+    }
+  }
+
+  static class GcResult {
+    int removedBlobs;
+    int removedReferences;
+    long freedBytes;
+  }
+
+  private final File root;
+  private final File blobs;
+  // All guarded by this.
+  private final Map<String, Blob> entries = new HashMap<>();
+  // Materialized path -> hash of the blob it refers to.
+  private final Map<String, String> owners = new HashMap<>();
+  private boolean loaded;
+
+  ContentStore(Context context) {
+    root = new File(context.getFilesDir(), DIRECTORY_NAME);
+    blobs = new File(root, BLOBS_DIRECTORY_NAME);
+  }
+
+  /**
+   * Moves source into the store. When a blob with the same content already exists, source is removed
+   * instead.
+   */
+  StoreResult store(File source) throws IOException {
+    String hash = getHash(source);
+    long size = source.length();
+
+    synchronized (this) {
+      load();
+      Blob blob = entries.get(hash);
+      if (blob != null && getBlobFile(hash).isFile()) {
+        if (!source.delete()) {
+          Log.w("RNFS2", "Could not remove duplicate of stored blob: " + source);
+        }
+        blob.storedAt = System.currentTimeMillis();
+        writeIndex();
+        return new StoreResult(hash, blob.size, true);
+      }
+    }
+
+    File dest = getBlobFile(hash);
+    File directory = dest.getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Could not create store directory: " + directory);
+    }
+
+    File temp = new File(directory, hash + "." + Thread.currentThread().getId() + ".tmp");
+    if (!source.renameTo(temp)) {
+      // Another volume, the move becomes a copy.
+      RNFSManager.copyLocalFile(source, temp);
+      if (!source.delete()) {
+        Log.w("RNFS2", "Could not remove stored source: " + source);
+      }
+    }
+    // Permissions are shared by every hard link, this keeps a materialized path from changing the blob.
+    temp.setReadOnly();
+
+    synchronized (this) {
+      boolean deduplicated = entries.containsKey(hash) && dest.isFile();
+      if (deduplicated) {
+        // Stored concurrently by another call.
+        temp.delete();
+      } else if (!temp.renameTo(dest)) {
+        temp.delete();
+        throw new IOException("Could not store blob: " + hash);
+      }
+      Blob blob = entries.get(hash);
+      if (blob == null) {
+        entries.put(hash, new Blob(hash, size, System.currentTimeMillis()));
+      } else {
+        blob.storedAt = System.currentTimeMillis();
+      }
+      writeIndex();
+      return new StoreResult(hash, size, deduplicated);
+    }
+  }
+
+  /**
+   * Creates dest with the content of the blob, as a hard link when possible and otherwise (or when
+   * copy is set) as a writable copy. dest becomes a reference of the blob.
+   *
+   * @return whether dest is a hard link
+   */
+  boolean materialize(String hash, File dest, boolean copy) throws IOException {
+    File blobFile = getBlobFile(hash);
+    String path = dest.getAbsolutePath();
+
+    synchronized (this) {
+      load();
+      if (!entries.containsKey(hash) || !blobFile.isFile()) {
+        throw new IllegalArgumentException("Hash is not stored: " + hash);
+      }
+    }
+
+    if (dest.exists() && !dest.delete()) {
+      throw new IOException("Could not replace: " + path);
+    }
+
+    boolean linked = false;
+    // Os.link() is only available from API 21.
+    if (!copy && android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
+      try {
+        Os.link(blobFile.getAbsolutePath(), path);
+        linked = true;
+      } catch (ErrnoException e) {
+        // EXDEV for another volume, EPERM on file systems without hard links (ie FAT on sdcards).
+      }
+    }
+    if (!linked) {
+      RNFSManager.copyLocalFile(blobFile, dest);
+      dest.setWritable(true);
+    }
+
+    synchronized (this) {
+      Blob blob = entries.get(hash);
+      if (blob == null) {
+        // Collected while we were copying.
+        dest.delete();
+        throw new IllegalArgumentException("Hash is not stored: " + hash);
+      }
+      String previous = owners.put(path, hash);
+      if (previous != null && !previous.equals(hash)) {
+        Blob previousBlob = entries.get(previous);
+        if (previousBlob != null) {
+          previousBlob.references.remove(path);
+        }
+      }
+      blob.references.put(path, linked);
+      writeIndex();
+    }
+    return linked;
+  }
+
+  /**
+   * Drops the references whose path was removed or replaced, then removes the blobs left without
+   * references once their grace period has ended.
+   */
+  synchronized GcResult gc() throws IOException {
+    load();
+    GcResult result = new GcResult();
+    long now = System.currentTimeMillis();
+
+    Iterator<Blob> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      Blob blob = iterator.next();
+      File blobFile = getBlobFile(blob.hash);
+      long inode = getInode(blobFile);
+
+      Iterator<Map.Entry<String, Boolean>> references = blob.references.entrySet().iterator();
+      while (references.hasNext()) {
+        Map.Entry<String, Boolean> reference = references.next();
+        if (!isLive(reference.getKey(), reference.getValue(), inode)) {
+          references.remove();
+          owners.remove(reference.getKey());
+          result.removedReferences++;
+        }
+      }
+
+      if (blob.references.isEmpty() && now - blob.storedAt >= STORE_GRACE_PERIOD_MS) {
+        if (blobFile.exists() && !blobFile.delete()) {
+          Log.w("RNFS2", "Could not remove blob: " + blobFile);
+          continue;
+        }
+        iterator.remove();
+        result.removedBlobs++;
+        result.freedBytes += blob.size;
+      }
+    }
+
+    writeIndex();
+    return result;
+  }
+
+  synchronized Blob getBlob(String hash) {
+    load();
+    return entries.get(hash);
+  }
+
+  synchronized Map<String, Blob> getBlobs() {
+    load();
+    return entries;
+  }
+
+  File getBlobFile(String hash) {
+    if (!hash.matches("[0-9a-f]{64}")) {
+      throw new IllegalArgumentException("Invalid hash: " + hash);
+    }
+    return new File(new File(blobs, hash.substring(0, 2)), hash);
+  }
+
+  private boolean isLive(String path, boolean linked, long blobInode) {
+    if (!linked || blobInode == -1) {
+      return new File(path).isFile();
+    }
+    try {
+      // Still the same inode, ie not deleted and written again at the same path.
+      return Os.stat(path).st_ino == blobInode;
+    } catch (ErrnoException e) {
+      return false;
+    }
+  }
+
+  private static long getInode(File file) {
+    if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.LOLLIPOP) {
+      return -1;
+    }
+    try {
+      StructStat stat = Os.stat(file.getAbsolutePath());
+      return stat.st_ino;
+    } catch (ErrnoException e) {
+      return -1;
+    }
+  }
+
+  private static String getHash(File file) throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        md.update(buffer, 0, read);
+      }
+
+      StringBuilder hex = new StringBuilder();
+      for (byte b : md.digest()) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void load() {
+    if (loaded) return;
+    loaded = true;
+
+    File index = new File(root, INDEX_FILE_NAME);
+    if (!index.isFile()) return;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+      int version = in.readInt();
+      if (version != INDEX_VERSION && version != 1) {
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        // Version 1 has no store time, its blobs have no grace period left.
+        Blob blob = new Blob(in.readUTF(), in.readLong(), version == 1 ? 0 : in.readLong());
+        int references = in.readInt();
+        for (int j = 0; j < references; j++) {
+          String path = in.readUTF();
+          blob.references.put(path, in.readBoolean());
+          owners.put(path, blob.hash);
+        }
+        // Skip blobs whose file was removed while the app was not running.
+        if (getBlobFile(blob.hash).isFile()) {
+          entries.put(blob.hash, blob);
+        }
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      Log.e("RNFS2", "Failed to read store index, starting empty: " + e.getMessage());
+      entries.clear();
+      owners.clear();
+    }
+  }
+
+  private void writeIndex() throws IOException {
+    if (!root.isDirectory() && !root.mkdirs()) {
+      throw new IOException("Could not create store directory: " + root);
+    }
+
+    File index = new File(root, INDEX_FILE_NAME);
+    File temp = new File(root, INDEX_FILE_NAME + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      out.writeInt(INDEX_VERSION);
+      out.writeInt(entries.size());
+      for (Blob blob : entries.values()) {
+        out.writeUTF(blob.hash);
+        out.writeLong(blob.size);
+        out.writeLong(blob.storedAt);
+        out.writeInt(blob.references.size());
+        for (Map.Entry<String, Boolean> reference : blob.references.entrySet()) {
+          out.writeUTF(reference.getKey());
+          out.writeBoolean(reference.getValue());
+        }
+      }
+    }
+    if (!temp.renameTo(index)) {
+      throw new IOException("Could not write store index");
+    }
+  }
+}
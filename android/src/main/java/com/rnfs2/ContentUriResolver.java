@@ -0,0 +1,178 @@
+package com.rnfs2;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+import android.util.LruCache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the metadata of content URIs (backing file path, size, last modified) with a projection of
+ * only those columns, and caches it per URI. Each authority that has cached entries gets one
+ * ContentObserver that drops the entries below a changed URI. Authorities that do not allow an
+ * observer are never cached, and writes made through this module invalidate their URI explicitly,
+ * since many providers (ie FileProvider or document providers) never notify.
+ */
+class ContentUriResolver {
+  static class Info {
+    final boolean exists;
+    final String dataPath;
+    final long size;
+    final Long lastModified; // milliseconds
+
+    Info(boolean exists, String dataPath, long size, Long lastModified) {
+      this.exists = exists;
+      this.dataPath = dataPath;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private static final int MAX_ENTRIES = 256;
+
+  private static final String[] MEDIA_PROJECTION = {MediaStore.MediaColumns.DATA, MediaStore.MediaColumns.SIZE, MediaStore.MediaColumns.DATE_MODIFIED};
+  private static final String[] DOCUMENT_PROJECTION = {DocumentsContract.Document.COLUMN_SIZE, DocumentsContract.Document.COLUMN_LAST_MODIFIED};
+  private static final String[] OPENABLE_PROJECTION = {OpenableColumns.SIZE};
+
+  private final ContentResolver resolver;
+  private final LruCache<String, Info> cache = new LruCache<>(MAX_ENTRIES);
+  private final Map<String, ContentObserver> observers = new HashMap<>();
+
+  ContentUriResolver(ContentResolver resolver) {
+    this.resolver = resolver;
+  }
+
+  Info resolve(Uri uri) {
+    String key = uri.toString();
+    boolean observed;
+    synchronized (this) {
+      Info cached = cache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      observed = observe(uri.getAuthority());
+    }
+
+    Info info = query(uri);
+    // Misses are not cached, the URI may be created by a provider that never notifies. Without an
+    // observer nothing would ever drop the entry.
+    if (info.exists && observed) {
+      synchronized (this) {
+        cache.put(key, info);
+      }
+    }
+    return info;
+  }
+
+  /**
+   * @return the cached metadata without querying the provider, or null
+   */
+  synchronized Info peek(Uri uri) {
+    return cache.get(uri.toString());
+  }
+
+  synchronized void invalidate(Uri uri) {
+    String prefix = uri.toString();
+    for (String key : cache.snapshot().keySet()) {
+      // A change notified for a collection also applies to every item below it.
+      if (key.equals(prefix) || key.startsWith(prefix + "/")) {
+        cache.remove(key);
+      }
+    }
+  }
+
+  synchronized void close() {
+    for (ContentObserver observer : observers.values()) {
+      resolver.unregisterContentObserver(observer);
+    }
+    observers.clear();
+    cache.evictAll();
+  }
+
+  /**
+   * @return whether changes below authority are observed
+   */
+  private boolean observe(final String authority) {
+    if (authority == null) return false;
+    if (observers.containsKey(authority)) return true;
+
+    final Uri root = Uri.parse(ContentResolver.SCHEME_CONTENT + "://" + authority);
+    ContentObserver observer = new ContentObserver(null) {
+      @Override
+      public void onChange(boolean selfChange) {
+        onChange(selfChange, null);
+      }
+
+      @Override
+      public void onChange(boolean selfChange, Uri uri) {
+        invalidate(uri != null ? uri : root);
+      }
+    };
+    try {
+      resolver.registerContentObserver(root, true, observer);
+      observers.put(authority, observer);
+      return true;
+    } catch (SecurityException e) {
+      // Some providers do not allow observers, their entries are not cached.
+      return false;
+    }
+  }
+
+  private Info query(Uri uri) {
+    String[] projection = getProjection(uri);
+    try {
+      return query(uri, projection);
+    } catch (IllegalArgumentException e) {
+      // The provider rejected a column, let it return whatever it has.
+      return query(uri, null);
+    }
+  }
+
+  private String[] getProjection(Uri uri) {
+    if (MediaStore.AUTHORITY.equals(uri.getAuthority())) {
+      return MEDIA_PROJECTION;
+    }
+    if (uri.getPathSegments().contains("document")) {
+      return DOCUMENT_PROJECTION;
+    }
+    return OPENABLE_PROJECTION;
+  }
+
+  private Info query(Uri uri, String[] projection) {
+    try (Cursor cursor = resolver.query(uri, projection, null, null, null)) {
+      if (cursor == null || !cursor.moveToFirst()) {
+        return new Info(false, null, -1, null);
+      }
+
+      String dataPath = null;
+      int dataIdx = cursor.getColumnIndex(MediaStore.MediaColumns.DATA);
+      if (dataIdx != -1 && !cursor.isNull(dataIdx)) {
+        dataPath = cursor.getString(dataIdx);
+      }
+
+      long size = -1;
+      int sizeIdx = cursor.getColumnIndex(OpenableColumns.SIZE);
+      if (sizeIdx != -1 && !cursor.isNull(sizeIdx)) {
+        size = cursor.getLong(sizeIdx);
+      }
+
+      Long lastModified = null;
+      int lmIdx = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+      int dateModifiedIdx = cursor.getColumnIndex(MediaStore.MediaColumns.DATE_MODIFIED);
+      if (lmIdx != -1 && !cursor.isNull(lmIdx)) {
+        lastModified = cursor.getLong(lmIdx);
+      } else if (dateModifiedIdx != -1 && !cursor.isNull(dateModifiedIdx)) {
+        // MediaStore dates are in seconds
+        lastModified = cursor.getLong(dateModifiedIdx) * 1000;
+      }
+
+      return new Info(true, dataPath, size, lastModified);
+    }
+  }
+}
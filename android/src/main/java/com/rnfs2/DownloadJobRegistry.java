@@ -0,0 +1,104 @@
+package com.rnfs2;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the running Downloader of each job and aggregates the metrics of finished jobs. Jobs are
+ * dropped as soon as they complete so finished Downloaders can be collected.
+ */
+public class DownloadJobRegistry {
+  public static class Stats {
+    public int activeJobs;
+    public int completedJobs;
+    public int failedJobs;
+    public long totalBytes;
+    public long totalTransferMillis;
+    public double averageQueueWaitMillis = -1;
+    public double averageDnsMillis = -1;
+    public double averageConnectMillis = -1;
+    public double averageFirstByteMillis = -1;
+    public double averageThroughput = -1;
+  }
+
+  private final ConcurrentHashMap<Integer, Downloader> jobs = new ConcurrentHashMap<>();
+
+  private int completedJobs;
+  private int failedJobs;
+  private long totalBytes;
+  private long totalTransferMillis;
+  private final Average queueWait = new Average();
+  private final Average dns = new Average();
+  private final Average connect = new Average();
+  private final Average firstByte = new Average();
+
+  public void register(int jobId, Downloader downloader) {
+    jobs.put(jobId, downloader);
+  }
+
+  /**
+   * Drops a job that never started, without counting it as completed or failed.
+   */
+  public void unregister(int jobId) {
+    jobs.remove(jobId);
+  }
+
+  public Downloader get(int jobId) {
+    return jobs.get(jobId);
+  }
+
+  public void complete(int jobId, DownloadResult res) {
+    jobs.remove(jobId);
+
+    DownloadMetrics metrics = res.metrics;
+    synchronized (this) {
+      if (res.exception == null) {
+        completedJobs++;
+      } else {
+        failedJobs++;
+      }
+
+      queueWait.add(metrics.queueWaitMillis);
+      dns.add(metrics.dnsMillis);
+      connect.add(metrics.connectMillis);
+      firstByte.add(metrics.firstByteMillis);
+      if (metrics.transferMillis >= 0) {
+        totalBytes += metrics.bytes;
+        totalTransferMillis += metrics.transferMillis;
+      }
+    }
+  }
+
+  public synchronized Stats getStats() {
+    Stats stats = new Stats();
+    stats.activeJobs = jobs.size();
+    stats.completedJobs = completedJobs;
+    stats.failedJobs = failedJobs;
+    stats.totalBytes = totalBytes;
+    stats.totalTransferMillis = totalTransferMillis;
+    stats.averageQueueWaitMillis = queueWait.get();
+    stats.averageDnsMillis = dns.get();
+    stats.averageConnectMillis = connect.get();
+    stats.averageFirstByteMillis = firstByte.get();
+    if (totalBytes > 0) {
+      stats.averageThroughput = (double) totalBytes * 1000 / Math.max(totalTransferMillis, 1);
+    }
+    return stats;
+  }
+
+  private static class Average {
+    private long sum;
+    private int count;
+
+    void add(long value) {
+      // Phases a job never reached are reported as -1 and do not count towards the average.
+      if (value >= 0) {
+        sum += value;
+        count++;
+      }
+    }
+
+    double get() {
+      return count > 0 ? (double) sum / count : -1;
+    }
+  }
+}
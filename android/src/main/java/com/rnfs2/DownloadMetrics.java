@@ -0,0 +1,24 @@
+package com.rnfs2;
+
+/**
+ * Timings of a single download job, all durations in milliseconds. Phases that did not happen (ie the
+ * body of a failed request) stay at -1.
+ */
+public class DownloadMetrics {
+  public long queueWaitMillis = -1;
+  public long dnsMillis = -1;
+  public long connectMillis = -1;
+  public long firstByteMillis = -1;
+  public long transferMillis = -1;
+  public long bytes;
+
+  /**
+   * @return the average body throughput in bytes per second, or -1 when no body was transferred
+   */
+  public double getThroughput() {
+    if (transferMillis < 0 || bytes <= 0) {
+      return -1;
+    }
+    return (double) bytes * 1000 / Math.max(transferMillis, 1);
+  }
+}
@@ -4,6 +4,8 @@ import java.io.File;
 import java.net.URL;
 import java.util.*;
 
+import android.os.ParcelFileDescriptor;
+
 import com.facebook.react.bridge.ReadableMap;
 
 public class DownloadParams {
@@ -16,16 +18,28 @@ public class DownloadParams {
   }
 
   public interface OnDownloadProgress {
-    void onDownloadProgress(long contentLength, long bytesWritten);
+    void onDownloadProgress(long contentLength, long bytesWritten, long bytesReceived);
   }
 
   public URL src;
   public File dest;
+  // When set the body is streamed into this descriptor (ie a pending MediaStore entry) instead of dest.
+  public ParcelFileDescriptor destDescriptor;
+  // When set the request is made conditional on the validators recorded by the last complete download.
+  public DownloadValidatorStore validatorStore;
   public ReadableMap headers;
   public int progressInterval;
   public float progressDivider;
   public int readTimeout;
   public int connectionTimeout;
+  // SystemClock.elapsedRealtime() when the job was requested, used for the queue wait metric.
+  public long enqueuedAt;
+  // Ask for gzip/deflate encoded bodies and decode them while writing to the destination.
+  public boolean decompress;
+  // Throttles the body transfer, either the shared budget or a per-job bucket. Swapped at runtime.
+  public volatile BandwidthLimiter bandwidthLimiter;
+  // Applied to the (decoded) body before it is written to the destination.
+  public RNFSFileTransformer.StreamTransformer transformer;
   public OnTaskCompleted onTaskCompleted;
   public OnDownloadBegin onDownloadBegin;
   public OnDownloadProgress onDownloadProgress;
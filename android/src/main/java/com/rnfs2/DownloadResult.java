@@ -3,5 +3,9 @@ package com.rnfs2;
 public class DownloadResult {
   public int statusCode;
   public long bytesWritten;
+  // Bytes read off the network, differs from bytesWritten when the body was decoded.
+  public long bytesReceived;
+  public boolean notModified;
   public Exception exception;
+  public final DownloadMetrics metrics = new DownloadMetrics();
 }
@@ -0,0 +1,84 @@
+package com.rnfs2;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Persists the ETag / Last-Modified validators of completed downloads, keyed by source URL and
+ * destination path, so a later download of the same resource can be made conditional.
+ */
+public class DownloadValidatorStore {
+  private static final String PREFERENCES_NAME = "RNFS2DownloadValidators";
+  private static final String ETAG_SUFFIX = "|etag";
+  private static final String LAST_MODIFIED_SUFFIX = "|lastModified";
+
+  private final SharedPreferences preferences;
+
+  public DownloadValidatorStore(Context context) {
+    preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+  }
+
+  private static String getKey(URL src, File dest) {
+    return src.toString() + "\n" + dest.getAbsolutePath();
+  }
+
+  /**
+   * Adds If-None-Match / If-Modified-Since to the request. Validators are only sent while the
+   * destination still exists, otherwise a 304 would leave the caller without a file.
+   *
+   * @return true when at least one validator was sent
+   */
+  public boolean applyValidators(HttpURLConnection connection, URL src, File dest) {
+    if (!dest.isFile()) {
+      return false;
+    }
+
+    String key = getKey(src, dest);
+    String etag = preferences.getString(key + ETAG_SUFFIX, null);
+    String lastModified = preferences.getString(key + LAST_MODIFIED_SUFFIX, null);
+
+    // Validators supplied by the caller take precedence over the stored ones.
+    if (etag != null && connection.getRequestProperty("If-None-Match") == null) {
+      connection.setRequestProperty("If-None-Match", etag);
+    }
+    if (lastModified != null && connection.getRequestProperty("If-Modified-Since") == null) {
+      connection.setRequestProperty("If-Modified-Since", lastModified);
+    }
+
+    return etag != null || lastModified != null;
+  }
+
+  /**
+   * Records the validators of a response whose body was fully written to dest.
+   */
+  public void storeValidators(HttpURLConnection connection, URL src, File dest) {
+    String key = getKey(src, dest);
+    String etag = connection.getHeaderField("ETag");
+    String lastModified = connection.getHeaderField("Last-Modified");
+
+    SharedPreferences.Editor editor = preferences.edit();
+    if (etag != null) {
+      editor.putString(key + ETAG_SUFFIX, etag);
+    } else {
+      editor.remove(key + ETAG_SUFFIX);
+    }
+    if (lastModified != null) {
+      editor.putString(key + LAST_MODIFIED_SUFFIX, lastModified);
+    } else {
+      editor.remove(key + LAST_MODIFIED_SUFFIX);
+    }
+    editor.apply();
+  }
+
+  public void removeValidators(URL src, File dest) {
+    String key = getKey(src, dest);
+    preferences.edit()
+      .remove(key + ETAG_SUFFIX)
+      .remove(key + LAST_MODIFIED_SUFFIX)
+      .apply();
+  }
+}
@@ -1,21 +1,44 @@
 package com.rnfs2;
 
 import java.io.FileOutputStream;
-import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.URL;
 import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
 import android.util.Log;
 
 import android.os.AsyncTask;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
 
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
 
 public class Downloader extends AsyncTask<DownloadParams, long[], DownloadResult> {
+  // Read window bounds. The window starts small so slow links still report progress often and grows
+  // with the measured throughput so fast links are not bottlenecked on read/write syscalls.
+  private static final int MIN_BUFFER_SIZE = 8 * 1024;
+  private static final int MAX_BUFFER_SIZE = 1024 * 1024;
+  // Aim for a single read to cover roughly this much transfer time at the measured throughput.
+  private static final long TARGET_READ_MILLIS = 10;
+  private static final long THROUGHPUT_SAMPLE_MILLIS = 250;
+  private static final int MAX_POOLED_BUFFERS = 4;
+
+  // Read buffers are up to 1MB, so they are recycled between jobs instead of churning the heap.
+  private static final ConcurrentLinkedQueue<byte[]> sBufferPool = new ConcurrentLinkedQueue<>();
+
   private DownloadParams mParam;
   private AtomicBoolean mAbort = new AtomicBoolean(false);
   DownloadResult res;
@@ -43,6 +66,13 @@ public class Downloader extends AsyncTask<DownloadParams, long[], DownloadResult
     InputStream input = null;
     FileOutputStream output = null;
     HttpURLConnection connection = null;
+    byte[] buffer = null;
+    DownloadMetrics metrics = res.metrics;
+    long requestStart = SystemClock.elapsedRealtime();
+
+    if (param.enqueuedAt > 0) {
+      metrics.queueWaitMillis = requestStart - param.enqueuedAt;
+    }
 
     try {
       connection = (HttpURLConnection)param.src.openConnection();
@@ -55,9 +85,28 @@ public class Downloader extends AsyncTask<DownloadParams, long[], DownloadResult
         connection.setRequestProperty(key, value);
       }
 
+      setAcceptEncoding(connection, param);
+
+      // Validators only make sense for a file destination that can be kept as-is on a 304.
+      boolean canValidate = param.validatorStore != null && param.destDescriptor == null;
+      boolean isConditional = canValidate && param.validatorStore.applyValidators(connection, param.src, param.dest);
+
       connection.setConnectTimeout(param.connectionTimeout);
       connection.setReadTimeout(param.readTimeout);
+
+      // Resolve up front so DNS shows up separately from the connect time. The result is cached by the
+      // system resolver, so connect() does not repeat the lookup.
+      long phaseStart = SystemClock.elapsedRealtime();
+      try {
+        InetAddress.getAllByName(param.src.getHost());
+        metrics.dnsMillis = SystemClock.elapsedRealtime() - phaseStart;
+      } catch (IOException ignored) {
+        // Let connect() report the failure.
+      }
+
+      phaseStart = SystemClock.elapsedRealtime();
       connection.connect();
+      metrics.connectMillis = SystemClock.elapsedRealtime() - phaseStart;
 
       int statusCode = connection.getResponseCode();
       long lengthOfFile = getContentLength(connection);
@@ -77,13 +126,22 @@ public class Downloader extends AsyncTask<DownloadParams, long[], DownloadResult
         connection.disconnect();
 
         connection = (HttpURLConnection) new URL(redirectURL).openConnection();
+        setAcceptEncoding(connection, param);
+        if (isConditional) {
+          param.validatorStore.applyValidators(connection, param.src, param.dest);
+        }
         connection.setConnectTimeout(5000);
         connection.connect();
 
         statusCode = connection.getResponseCode();
         lengthOfFile = getContentLength(connection);
       }
-      if(statusCode >= 200 && statusCode < 300) {
+      metrics.firstByteMillis = SystemClock.elapsedRealtime() - requestStart;
+
+      if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED && isConditional) {
+        // The existing destination is still current, keep it untouched.
+        res.notModified = true;
+      } else if(statusCode >= 200 && statusCode < 300) {
         Map<String, List<String>> headers = connection.getHeaderFields();
 
         Map<String, String> headersFlat = new HashMap<>();
@@ -101,57 +159,240 @@ public class Downloader extends AsyncTask<DownloadParams, long[], DownloadResult
           mParam.onDownloadBegin.onDownloadBegin(statusCode, lengthOfFile, headersFlat);
         }
 
-        input = new BufferedInputStream(connection.getInputStream(), 8 * 1024);
-        output = new FileOutputStream(param.dest);
+        // The destination is about to be overwritten, so its validators are stale until the body completes.
+        if (canValidate) {
+          param.validatorStore.removeValidators(param.src, param.dest);
+        }
+
+        CountingInputStream wireInput = new CountingInputStream(connection.getInputStream());
+        String contentEncoding = param.decompress ? connection.getContentEncoding() : null;
+        boolean isEncoded = contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity");
+        input = getDecodingInputStream(wireInput, contentEncoding);
+        output = param.destDescriptor != null
+          ? new ParcelFileDescriptor.AutoCloseOutputStream(param.destDescriptor)
+          : new FileOutputStream(param.dest);
+
+        FileChannel outputChannel = output.getChannel();
+        // The announced length is the encoded size, it says nothing about the decoded or transformed file.
+        if (!isEncoded && param.transformer == null) {
+          preallocate(output, lengthOfFile);
+        }
+
+        buffer = acquireBuffer();
+        long transferStart = SystemClock.elapsedRealtime();
+        int bufferSize = MIN_BUFFER_SIZE;
+        long sampleStart = System.currentTimeMillis();
+        long sampleBytes = 0;
 
-        byte data[] = new byte[8 * 1024];
         long total = 0;
+        long throttledBytes = 0;
         int count;
         double lastProgressValue = 0;
         long lastProgressEmitTimestamp = 0;
         boolean hasProgressCallback = mParam.onDownloadProgress != null;
 
-        while ((count = input.read(data)) != -1) {
+        while (true) {
+          // Read straight from the stream into the heap array, the window size reaches the socket read.
+          if ((count = input.read(buffer, 0, bufferSize)) == -1) break;
           if (mAbort.get()) throw new Exception("Download has been aborted");
 
           total += count;
+          metrics.bytes = total;
+
+          // Throttle on wire bytes, that is what the budget is meant to protect.
+          BandwidthLimiter limiter = param.bandwidthLimiter;
+          if (limiter != null) {
+            long received = wireInput.getCount();
+            if (!limiter.acquire((int) (received - throttledBytes), mAbort)) {
+              throw new Exception("Download has been aborted");
+            }
+            throttledBytes = received;
+          }
 
           if (hasProgressCallback) {
+            long received = wireInput.getCount();
             if (param.progressInterval > 0) {
               long timestamp = System.currentTimeMillis();
               if (timestamp - lastProgressEmitTimestamp > param.progressInterval) {
                 lastProgressEmitTimestamp = timestamp;
-                publishProgress(new long[]{lengthOfFile, total});
+                publishProgress(new long[]{lengthOfFile, total, received});
               }
             } else if (param.progressDivider <= 0) {
-              publishProgress(new long[]{lengthOfFile, total});
+              publishProgress(new long[]{lengthOfFile, total, received});
             } else {
-              double progress = Math.round(((double) total * 100) / lengthOfFile);
+              // contentLength counts wire bytes, so the percentage is based on what was received.
+              double progress = Math.round(((double) received * 100) / lengthOfFile);
               if (progress % param.progressDivider == 0) {
-                if ((progress != lastProgressValue) || (total == lengthOfFile)) {
+                if ((progress != lastProgressValue) || (received == lengthOfFile)) {
                   Log.d("Downloader", "EMIT: " + String.valueOf(progress) + ", TOTAL:" + String.valueOf(total));
                   lastProgressValue = progress;
-                  publishProgress(new long[]{lengthOfFile, total});
+                  publishProgress(new long[]{lengthOfFile, total, received});
                 }
               }
             }
           }
 
-          output.write(data, 0, count);
+          ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, count);
+          writeFully(outputChannel, param.transformer != null ? param.transformer.transform(chunk) : chunk);
+
+          sampleBytes += count;
+          long now = System.currentTimeMillis();
+          if (now - sampleStart >= THROUGHPUT_SAMPLE_MILLIS) {
+            bufferSize = nextBufferSize(sampleBytes, now - sampleStart);
+            sampleStart = now;
+            sampleBytes = 0;
+          }
+        }
+
+        if (param.transformer != null) {
+          writeFully(outputChannel, param.transformer.finish());
+        }
+
+        metrics.transferMillis = SystemClock.elapsedRealtime() - transferStart;
+
+        // Drop any preallocated tail if the server sent less than it announced.
+        if (outputChannel.size() > outputChannel.position()) {
+          outputChannel.truncate(outputChannel.position());
         }
 
         output.flush();
         output.getFD().sync();
         res.bytesWritten = total;
+        res.bytesReceived = wireInput.getCount();
+
+        if (canValidate) {
+          param.validatorStore.storeValidators(connection, param.src, param.dest);
+        }
       }
       res.statusCode = statusCode;
- } finally {
+    } finally {
       if (output != null) output.close();
+      else if (param.destDescriptor != null) param.destDescriptor.close();
       if (input != null) input.close();
       if (connection != null) connection.disconnect();
+      if (buffer != null) releaseBuffer(buffer);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    if (buffer == null) return;
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static byte[] acquireBuffer() {
+    byte[] buffer = sBufferPool.poll();
+    return buffer != null ? buffer : new byte[MAX_BUFFER_SIZE];
+  }
+
+  private static void releaseBuffer(byte[] buffer) {
+    if (sBufferPool.size() < MAX_POOLED_BUFFERS) {
+      sBufferPool.offer(buffer);
     }
   }
 
+  /**
+   * Sizes the next read window from the throughput observed over the last sample, rounded down to a
+   * power of two and clamped to [MIN_BUFFER_SIZE, MAX_BUFFER_SIZE].
+   */
+  static int nextBufferSize(long sampleBytes, long sampleMillis) {
+    long bytesPerRead = sampleBytes * TARGET_READ_MILLIS / Math.max(sampleMillis, 1);
+    if (bytesPerRead <= MIN_BUFFER_SIZE) return MIN_BUFFER_SIZE;
+    if (bytesPerRead >= MAX_BUFFER_SIZE) return MAX_BUFFER_SIZE;
+    return Integer.highestOneBit((int) bytesPerRead);
+  }
+
+  /**
+   * Reserves the full download size up front when the server announced it, so the file system can lay
+   * the file out contiguously and a full disk fails before any bytes are transferred.
+   */
+  private static void preallocate(FileOutputStream output, long length) throws IOException {
+    if (length <= 0 || android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.LOLLIPOP) {
+      return;
+    }
+
+    try {
+      Os.posix_fallocate(output.getFD(), 0, length);
+    } catch (ErrnoException e) {
+      if (e.errno == OsConstants.ENOSPC) {
+        throw new IOException("ENOSPC: not enough space to download " + length + " bytes", e);
+      }
+      // Not every file system supports fallocate, the download simply proceeds without it.
+    }
+  }
+
+  private static InputStream getDecodingInputStream(InputStream input, String contentEncoding) throws IOException {
+    if (contentEncoding == null) {
+      return input;
+    }
+    if (contentEncoding.equalsIgnoreCase("gzip") || contentEncoding.equalsIgnoreCase("x-gzip")) {
+      return new GZIPInputStream(input, 64 * 1024);
+    }
+    if (contentEncoding.equalsIgnoreCase("deflate")) {
+      return new InflaterInputStream(input);
+    }
+    if (contentEncoding.equalsIgnoreCase("identity")) {
+      return input;
+    }
+    throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+  }
+
+  /**
+   * Counts the bytes read from the network, below any content decoding.
+   */
+  private static class CountingInputStream extends FilterInputStream {
+    private volatile long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) count++;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) count += read;
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+
+  /**
+   * Setting Accept-Encoding explicitly turns off the platform's transparent gzip handling, which would
+   * otherwise hide the encoded length and wire byte count. The other request headers are not carried
+   * over to a redirect, this one is so the redirected response is decoded the same way.
+   */
+  private static void setAcceptEncoding(HttpURLConnection connection, DownloadParams param) {
+    if (!param.decompress || connection.getRequestProperty("Accept-Encoding") != null) return;
+
+    String acceptEncoding = "gzip, deflate";
+    ReadableMapKeySetIterator iterator = param.headers.keySetIterator();
+    while (iterator.hasNextKey()) {
+      String key = iterator.nextKey();
+      if ("Accept-Encoding".equalsIgnoreCase(key)) {
+        acceptEncoding = param.headers.getString(key);
+      }
+    }
+    connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+  }
+
   private long getContentLength(HttpURLConnection connection){
     if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
       return connection.getContentLengthLong();
@@ -163,11 +404,15 @@ public class Downloader extends AsyncTask<DownloadParams, long[], DownloadResult
     mAbort.set(true);
   }
 
+  DownloadParams getParams() {
+    return mParam;
+  }
+
   @Override
   protected void onProgressUpdate(long[]... values) {
     super.onProgressUpdate(values);
     if (mParam.onDownloadProgress != null) {
-      mParam.onDownloadProgress.onDownloadProgress(values[0][0], values[0][1]);
+      mParam.onDownloadProgress.onDownloadProgress(values[0][0], values[0][1], values[0][2]);
     }
   }
 
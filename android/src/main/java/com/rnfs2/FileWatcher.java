@@ -0,0 +1,219 @@
+package com.rnfs2;
+
+import android.os.FileObserver;
+import android.os.Handler;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Watches a directory (and optionally its subdirectories) with one FileObserver per directory. Events
+ * are collected for a fixed window after the first one arrives and then delivered as a single batch,
+ * with the events of each path merged.
+ */
+class FileWatcher {
+  interface OnChangeListener {
+    void onChange(FileWatcher watcher, WritableMap event);
+  }
+
+  static final int EVENT_CREATE = FileObserver.CREATE | FileObserver.MOVED_TO;
+  static final int EVENT_MODIFY = FileObserver.CLOSE_WRITE;
+  static final int EVENT_DELETE = FileObserver.DELETE | FileObserver.MOVED_FROM | FileObserver.DELETE_SELF;
+  static final int EVENT_ATTRIB = FileObserver.ATTRIB;
+
+  // inotify flag set on events about a directory.
+  private static final int IN_ISDIR = 0x40000000;
+  // Above this many changed paths in one window only the overflow flag is reported.
+  private static final int MAX_CHANGES = 1000;
+
+  final int watchId;
+  private final File root;
+  private final boolean recursive;
+  private final int mask;
+  private final long window;
+  private final int maxDirectories;
+  private final Handler handler;
+  private final OnChangeListener listener;
+
+  // All guarded by this.
+  private final Map<String, FileObserver> observers = new HashMap<>();
+  private final Map<String, Integer> pending = new LinkedHashMap<>();
+  private boolean overflow;
+  private boolean directoryLimitReached;
+  private boolean scheduled;
+  private boolean stopped;
+
+  private final Runnable flush = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  FileWatcher(int watchId, File root, boolean recursive, int mask, long window, int maxDirectories, Handler handler, OnChangeListener listener) {
+    this.watchId = watchId;
+    this.root = root;
+    this.recursive = recursive;
+    this.mask = mask;
+    this.window = window;
+    this.maxDirectories = maxDirectories;
+    this.handler = handler;
+    this.listener = listener;
+  }
+
+  synchronized void start() {
+    if (!recursive) {
+      addDirectory(root);
+      return;
+    }
+
+    // Breadth first, so the directories closest to the root are watched when the limit is reached.
+    Deque<File> queue = new ArrayDeque<>();
+    queue.add(root);
+    while (!queue.isEmpty() && !directoryLimitReached) {
+      File directory = queue.poll();
+      if (!addDirectory(directory)) break;
+
+      File[] children = directory.listFiles();
+      if (children == null) continue;
+      for (File child : children) {
+        if (child.isDirectory()) {
+          queue.add(child);
+        }
+      }
+    }
+  }
+
+  synchronized void stop() {
+    stopped = true;
+    for (FileObserver observer : observers.values()) {
+      observer.stopWatching();
+    }
+    observers.clear();
+    handler.removeCallbacks(flush);
+  }
+
+  synchronized int getDirectoryCount() {
+    return observers.size();
+  }
+
+  /**
+   * @return false when the directory limit was reached
+   */
+  private boolean addDirectory(File directory) {
+    final String path = directory.getAbsolutePath();
+    if (observers.containsKey(path)) return true;
+    if (observers.size() >= maxDirectories) {
+      directoryLimitReached = true;
+      return false;
+    }
+
+    // Subdirectories are tracked even when the caller is not interested in creates and deletes.
+    int observerMask = mask | (recursive ? FileObserver.CREATE | FileObserver.MOVED_TO | FileObserver.DELETE_SELF | FileObserver.MOVE_SELF : 0);
+
+    @SuppressWarnings("deprecation")
+    FileObserver observer = new FileObserver(path, observerMask) {
+      @Override
+      public void onEvent(int event, String name) {
+        FileWatcher.this.onEvent(path, event, name);
+      }
+    };
+    observer.startWatching();
+    observers.put(path, observer);
+    return true;
+  }
+
+  private synchronized void onEvent(String directory, int event, String name) {
+    if (stopped) return;
+
+    String path = name != null ? directory + "/" + name : directory;
+    int type = event & FileObserver.ALL_EVENTS;
+
+    if (recursive) {
+      if ((event & IN_ISDIR) != 0 && (type & (FileObserver.CREATE | FileObserver.MOVED_TO)) != 0) {
+        addDirectory(new File(path));
+      } else if ((type & (FileObserver.DELETE_SELF | FileObserver.MOVE_SELF)) != 0) {
+        FileObserver observer = observers.remove(directory);
+        if (observer != null) {
+          observer.stopWatching();
+        }
+      }
+    }
+
+    type &= mask;
+    if (type == 0) return;
+
+    if (!overflow) {
+      Integer events = pending.get(path);
+      pending.put(path, events != null ? events | type : type);
+      if (pending.size() > MAX_CHANGES) {
+        overflow = true;
+        pending.clear();
+      }
+    }
+
+    if (!scheduled) {
+      scheduled = true;
+      handler.postDelayed(flush, window);
+    }
+  }
+
+  private void flush() {
+    WritableMap event = Arguments.createMap();
+    synchronized (this) {
+      scheduled = false;
+      if (stopped) return;
+
+      WritableArray changes = Arguments.createArray();
+      Iterator<Map.Entry<String, Integer>> iterator = pending.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, Integer> entry = iterator.next();
+        WritableMap change = Arguments.createMap();
+        change.putString("path", entry.getKey());
+        change.putArray("events", getEventNames(entry.getValue()));
+        changes.pushMap(change);
+        iterator.remove();
+      }
+
+      event.putInt("watchId", watchId);
+      event.putArray("changes", changes);
+      event.putBoolean("overflow", overflow);
+      event.putBoolean("directoryLimitReached", directoryLimitReached);
+      overflow = false;
+    }
+    listener.onChange(this, event);
+  }
+
+  static int getMask(String eventName) {
+    switch (eventName) {
+      case "create":
+        return EVENT_CREATE;
+      case "modify":
+        return EVENT_MODIFY;
+      case "delete":
+        return EVENT_DELETE;
+      case "attrib":
+        return EVENT_ATTRIB;
+      default:
+        throw new IllegalArgumentException("Unknown event: " + eventName);
+    }
+  }
+
+  private static WritableArray getEventNames(int events) {
+    WritableArray names = Arguments.createArray();
+    if ((events & EVENT_CREATE) != 0) names.pushString("create");
+    if ((events & EVENT_MODIFY) != 0) names.pushString("modify");
+    if ((events & EVENT_DELETE) != 0) names.pushString("delete");
+    if ((events & EVENT_ATTRIB) != 0) names.pushString("attrib");
+    return names;
+  }
+}
@@ -0,0 +1,114 @@
+package com.rnfs2;
+
+import com.facebook.react.bridge.Promise;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A network transfer shared by every downloadFile job that asked for the same URL, headers and transfer
+ * options while it was running. The first job (the primary) owns the destination the Downloader writes
+ * to, later jobs attach as followers and receive the same events and a copy of the result. When the
+ * primary is stopped, the first follower takes over the transfer and its destination.
+ *
+ * All state is guarded by the lock of the map the transfer is registered in.
+ */
+class InFlightDownload {
+  static class Participant {
+    final int jobId;
+    final File dest;
+    final Promise promise;
+    final boolean hasBeginCallback;
+    final boolean hasProgressCallback;
+
+    Participant(int jobId, File dest, Promise promise, boolean hasBeginCallback, boolean hasProgressCallback) {
+      this.jobId = jobId;
+      this.dest = dest;
+      this.promise = promise;
+      this.hasBeginCallback = hasBeginCallback;
+      this.hasProgressCallback = hasProgressCallback;
+    }
+  }
+
+  final String key;
+  // The job the Downloader is registered under, it does not change when the primary does.
+  final int transferJobId;
+  Participant primary;
+  final List<Participant> followers = new ArrayList<>();
+  // Jobs that were stopped while others kept the transfer, their ids must not reach the Downloader.
+  final Set<Integer> detached = new HashSet<>();
+  // Where the Downloader writes, the first primary's destination until it is handed over.
+  File transferDest;
+  // Set once the Downloader has its output open, so the destination can be renamed underneath it.
+  boolean writing;
+  // Set once the transfer got its own rate limit, later jobs for the same key do not attach to it.
+  boolean rateLimited;
+
+  // Replayed to followers that attach after the response headers arrived.
+  boolean begun;
+  int beginStatusCode;
+  long beginContentLength;
+  Map<String, String> beginHeaders;
+
+  InFlightDownload(String key, Participant primary) {
+    this.key = key;
+    this.transferJobId = primary.jobId;
+    this.primary = primary;
+    this.transferDest = primary.dest;
+  }
+
+  /**
+   * Makes the first follower the primary after the primary was stopped.
+   *
+   * @return the stopped primary
+   */
+  Participant handOver() {
+    Participant stopped = primary;
+    primary = followers.remove(0);
+    detached.add(stopped.jobId);
+
+    // The open output keeps writing to the same inode, now under the new primary's path. Before the
+    // output is open the rename would race with the Downloader creating the file, so the result is
+    // moved once the transfer completes instead.
+    if (writing && !primary.dest.getAbsolutePath().equals(transferDest.getAbsolutePath()) && transferDest.renameTo(primary.dest)) {
+      transferDest = primary.dest;
+    }
+    return stopped;
+  }
+
+  Participant removeFollower(int jobId) {
+    Iterator<Participant> iterator = followers.iterator();
+    while (iterator.hasNext()) {
+      Participant follower = iterator.next();
+      if (follower.jobId == jobId) {
+        iterator.remove();
+        detached.add(jobId);
+        return follower;
+      }
+    }
+    return null;
+  }
+
+  Participant getParticipant(int jobId) {
+    if (primary.jobId == jobId) return primary;
+    for (Participant follower : followers) {
+      if (follower.jobId == jobId) return follower;
+    }
+    return null;
+  }
+
+  /**
+   * @return every job still waiting on this transfer
+   */
+  List<Participant> getParticipants() {
+    List<Participant> participants = new ArrayList<>(followers.size() + 1);
+    participants.add(primary);
+    participants.addAll(followers);
+    return participants;
+  }
+}
@@ -0,0 +1,244 @@
+package com.rnfs2;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.MediaStore;
+import android.util.LruCache;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of MediaStore listings. The first page of a listing loads every matching row with the
+ * requested projection in one cursor pass, later pages are sliced from memory. A ContentObserver on each
+ * listed collection drops its listings as soon as the provider reports a change.
+ */
+class MediaStoreIndex {
+  static final String COLUMN_URI = "uri";
+
+  // JS column name -> MediaStore column, in the order used when no columns are requested.
+  private static final Map<String, String> COLUMNS = new LinkedHashMap<>();
+  static {
+    COLUMNS.put("id", MediaStore.MediaColumns._ID);
+    COLUMNS.put(COLUMN_URI, MediaStore.MediaColumns._ID);
+    COLUMNS.put("name", MediaStore.MediaColumns.DISPLAY_NAME);
+    COLUMNS.put("relativePath", MediaStore.MediaColumns.RELATIVE_PATH);
+    COLUMNS.put("mimeType", MediaStore.MediaColumns.MIME_TYPE);
+    COLUMNS.put("size", MediaStore.MediaColumns.SIZE);
+    COLUMNS.put("dateAdded", MediaStore.MediaColumns.DATE_ADDED);
+    COLUMNS.put("dateModified", MediaStore.MediaColumns.DATE_MODIFIED);
+    COLUMNS.put("dateTaken", MediaStore.MediaColumns.DATE_TAKEN);
+    COLUMNS.put("width", MediaStore.MediaColumns.WIDTH);
+    COLUMNS.put("height", MediaStore.MediaColumns.HEIGHT);
+    COLUMNS.put("duration", MediaStore.MediaColumns.DURATION);
+    COLUMNS.put("orientation", MediaStore.MediaColumns.ORIENTATION);
+  }
+
+  static final List<String> DEFAULT_COLUMNS = Arrays.asList("id", COLUMN_URI, "name", "mimeType", "size", "dateModified");
+  private static final int MAX_LISTINGS = 16;
+
+  static class Query {
+    final Uri collection;
+    final String relativePath;
+    final List<String> mimeTypes;
+    final String sortBy;
+    final boolean ascending;
+    final List<String> columns;
+
+    Query(Uri collection, String relativePath, List<String> mimeTypes, String sortBy, boolean ascending, List<String> columns) {
+      for (String column : columns) {
+        if (!COLUMNS.containsKey(column)) {
+          throw new IllegalArgumentException("Unknown column: " + column);
+        }
+      }
+      if (!COLUMNS.containsKey(sortBy)) {
+        throw new IllegalArgumentException("Unknown sortBy column: " + sortBy);
+      }
+
+      this.collection = collection;
+      this.relativePath = relativePath;
+      this.mimeTypes = mimeTypes;
+      this.sortBy = sortBy;
+      this.ascending = ascending;
+      this.columns = columns;
+    }
+
+    String getKey() {
+      return collection + "|" + relativePath + "|" + mimeTypes + "|" + sortBy + "|" + ascending + "|" + columns;
+    }
+  }
+
+  private static class Listing {
+    final Uri collection;
+    final long generation;
+    final List<Object[]> rows;
+
+    Listing(Uri collection, long generation, List<Object[]> rows) {
+      this.collection = collection;
+      this.generation = generation;
+      this.rows = rows;
+    }
+  }
+
+  private final ContentResolver resolver;
+  private final LruCache<String, Listing> listings = new LruCache<>(MAX_LISTINGS);
+  private final Map<Uri, ContentObserver> observers = new HashMap<>();
+  private final Map<Uri, Long> generations = new HashMap<>();
+
+  MediaStoreIndex(ContentResolver resolver) {
+    this.resolver = resolver;
+  }
+
+  /**
+   * @return {rows, total, offset, hasMore} for the requested page
+   */
+  WritableMap list(Query query, int offset, int limit) {
+    Listing listing = getListing(query);
+    int total = listing.rows.size();
+    int start = Math.min(Math.max(offset, 0), total);
+    int end = limit > 0 ? Math.min(start + limit, total) : total;
+
+    WritableArray rows = Arguments.createArray();
+    for (int i = start; i < end; i++) {
+      rows.pushMap(toRowMap(query, listing.rows.get(i)));
+    }
+
+    WritableMap page = Arguments.createMap();
+    page.putArray("rows", rows);
+    page.putInt("total", total);
+    page.putInt("offset", start);
+    page.putBoolean("hasMore", end < total);
+    return page;
+  }
+
+  synchronized void invalidate(Uri collection) {
+    Long generation = generations.get(collection);
+    generations.put(collection, generation == null ? 1 : generation + 1);
+  }
+
+  synchronized void close() {
+    for (ContentObserver observer : observers.values()) {
+      resolver.unregisterContentObserver(observer);
+    }
+    observers.clear();
+    listings.evictAll();
+  }
+
+  private Listing getListing(Query query) {
+    String key = query.getKey();
+    long generation;
+    synchronized (this) {
+      Listing cached = listings.get(key);
+      generation = getGeneration(query.collection);
+      if (cached != null && cached.generation == generation) {
+        return cached;
+      }
+      observe(query.collection);
+    }
+
+    // Loaded outside the lock so a slow provider does not block the observer. A change that lands
+    // during the load bumps the generation, so the listing is reloaded on the next page.
+    Listing listing = new Listing(query.collection, generation, load(query));
+    synchronized (this) {
+      listings.put(key, listing);
+    }
+    return listing;
+  }
+
+  private long getGeneration(Uri collection) {
+    Long generation = generations.get(collection);
+    return generation != null ? generation : 0;
+  }
+
+  private void observe(final Uri collection) {
+    if (observers.containsKey(collection)) return;
+
+    ContentObserver observer = new ContentObserver(null) {
+      @Override
+      public void onChange(boolean selfChange) {
+        invalidate(collection);
+      }
+    };
+    resolver.registerContentObserver(collection, true, observer);
+    observers.put(collection, observer);
+  }
+
+  private List<Object[]> load(Query query) {
+    List<String> projection = new ArrayList<>();
+    for (String column : query.columns) {
+      String mediaColumn = COLUMNS.get(column);
+      if (!projection.contains(mediaColumn)) {
+        projection.add(mediaColumn);
+      }
+    }
+
+    StringBuilder selection = new StringBuilder(MediaStore.MediaColumns.IS_PENDING + " = 0");
+    List<String> selectionArgs = new ArrayList<>();
+    if (query.relativePath != null) {
+      selection.append(" AND ").append(MediaStore.MediaColumns.RELATIVE_PATH).append(" = ?");
+      selectionArgs.add(query.relativePath);
+    }
+    if (query.mimeTypes != null && !query.mimeTypes.isEmpty()) {
+      selection.append(" AND (");
+      for (int i = 0; i < query.mimeTypes.size(); i++) {
+        if (i > 0) selection.append(" OR ");
+        selection.append(MediaStore.MediaColumns.MIME_TYPE).append(" LIKE ?");
+        // image/* matches every image type
+        selectionArgs.add(query.mimeTypes.get(i).replace('*', '%'));
+      }
+      selection.append(")");
+    }
+    String sortOrder = COLUMNS.get(query.sortBy) + (query.ascending ? " ASC" : " DESC");
+
+    List<Object[]> rows = new ArrayList<>();
+    try (Cursor cursor = resolver.query(query.collection, projection.toArray(new String[0]), selection.toString(), selectionArgs.toArray(new String[0]), sortOrder)) {
+      if (cursor == null) {
+        return rows;
+      }
+
+      int[] indexes = new int[query.columns.size()];
+      for (int i = 0; i < indexes.length; i++) {
+        indexes[i] = cursor.getColumnIndex(COLUMNS.get(query.columns.get(i)));
+      }
+
+      while (cursor.moveToNext()) {
+        Object[] row = new Object[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+          int index = indexes[i];
+          if (index < 0 || cursor.isNull(index)) continue;
+          row[i] = cursor.getType(index) == Cursor.FIELD_TYPE_STRING ? cursor.getString(index) : (Object) cursor.getLong(index);
+        }
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+
+  private static WritableMap toRowMap(Query query, Object[] row) {
+    WritableMap map = Arguments.createMap();
+    for (int i = 0; i < row.length; i++) {
+      String column = query.columns.get(i);
+      Object value = row[i];
+      if (value == null) {
+        map.putNull(column);
+      } else if (COLUMN_URI.equals(column)) {
+        map.putString(column, Uri.withAppendedPath(query.collection, String.valueOf(value)).toString());
+      } else if (value instanceof String) {
+        map.putString(column, (String) value);
+      } else {
+        map.putDouble(column, (Long) value);
+      }
+    }
+    return map;
+  }
+}
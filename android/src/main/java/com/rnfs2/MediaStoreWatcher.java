@@ -0,0 +1,136 @@
+package com.rnfs2;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Observes one MediaStore collection and reports its changes in batches. Notifications are collected
+ * until the collection has been quiet for the debounce interval (or maxWait has passed since the first
+ * pending change), then delivered as a single event carrying the distinct changed URIs.
+ */
+class MediaStoreWatcher {
+  interface OnChangeListener {
+    void onChange(MediaStoreWatcher watcher, WritableMap event);
+  }
+
+  // Above this many pending URIs only the generation is reported.
+  private static final int MAX_URIS = 500;
+
+  final int watchId;
+  private final String mediaType;
+  private final Uri collection;
+  private final ContentResolver resolver;
+  private final Handler handler;
+  private final long debounce;
+  private final long maxWait;
+  private final OnChangeListener listener;
+
+  // Guarded by this.
+  private final Set<String> pendingUris = new LinkedHashSet<>();
+  private boolean overflow;
+  private boolean pending;
+  private long firstPendingAt;
+  private long generation;
+
+  private final ContentObserver observer;
+  private final Runnable flush = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  MediaStoreWatcher(int watchId, String mediaType, Uri collection, ContentResolver resolver, Handler handler, long debounce, long maxWait, OnChangeListener listener) {
+    this.watchId = watchId;
+    this.mediaType = mediaType;
+    this.collection = collection;
+    this.resolver = resolver;
+    this.handler = handler;
+    this.debounce = debounce;
+    this.maxWait = maxWait;
+    this.listener = listener;
+
+    observer = new ContentObserver(handler) {
+      @Override
+      public void onChange(boolean selfChange) {
+        onChange(selfChange, (Uri) null);
+      }
+
+      @Override
+      public void onChange(boolean selfChange, Uri uri) {
+        enqueue(uri);
+      }
+
+      @Override
+      public void onChange(boolean selfChange, Collection<Uri> uris, int flags) {
+        for (Uri uri : uris) {
+          enqueue(uri);
+        }
+      }
+    };
+  }
+
+  void start() {
+    resolver.registerContentObserver(collection, true, observer);
+  }
+
+  void stop() {
+    resolver.unregisterContentObserver(observer);
+    handler.removeCallbacks(flush);
+  }
+
+  private synchronized void enqueue(Uri uri) {
+    long now = System.currentTimeMillis();
+    if (!pending) {
+      pending = true;
+      firstPendingAt = now;
+    }
+
+    if (uri != null && !overflow) {
+      pendingUris.add(uri.toString());
+      if (pendingUris.size() > MAX_URIS) {
+        overflow = true;
+        pendingUris.clear();
+      }
+    }
+
+    // Restart the quiet period, but never hold a batch back longer than maxWait.
+    handler.removeCallbacks(flush);
+    long delay = Math.min(debounce, Math.max(firstPendingAt + maxWait - now, 0));
+    handler.postDelayed(flush, delay);
+  }
+
+  private void flush() {
+    WritableMap event = Arguments.createMap();
+    synchronized (this) {
+      if (!pending) return;
+
+      generation++;
+      WritableArray uris = Arguments.createArray();
+      for (String uri : pendingUris) {
+        uris.pushString(uri);
+      }
+
+      event.putInt("watchId", watchId);
+      event.putString("mediaType", mediaType);
+      event.putDouble("generation", generation);
+      event.putArray("uris", uris);
+      event.putBoolean("overflow", overflow);
+
+      pendingUris.clear();
+      overflow = false;
+      pending = false;
+    }
+    listener.onChange(this, event);
+  }
+}
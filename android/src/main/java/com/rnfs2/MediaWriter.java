@@ -0,0 +1,79 @@
+package com.rnfs2;
+
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A pending MediaStore entry that is written in chunks. The entry's descriptor stays open for the
+ * lifetime of the session, so every chunk goes straight into the final media file.
+ */
+class MediaWriter {
+  final int writerId;
+  final Uri fileUri;
+  private final ParcelFileDescriptor descriptor;
+  private final FileOutputStream fileStream;
+  private final OutputStream out;
+  private long bytesWritten;
+  private boolean closed;
+
+  MediaWriter(int writerId, Uri fileUri, ParcelFileDescriptor descriptor, RNFSFileTransformer.StreamTransformer transformer) {
+    this.writerId = writerId;
+    this.fileUri = fileUri;
+    this.descriptor = descriptor;
+    this.fileStream = new FileOutputStream(descriptor.getFileDescriptor());
+    this.out = transformer != null ? new RNFSFileTransformer.TransformOutputStream(fileStream, transformer) : fileStream;
+  }
+
+  /**
+   * @return the total number of bytes accepted by this writer
+   */
+  synchronized long write(byte[] data) throws IOException {
+    if (closed) {
+      throw new IOException("Media writer is already closed");
+    }
+    out.write(data);
+    bytesWritten += data.length;
+    return bytesWritten;
+  }
+
+  /**
+   * Flushes the remaining data to disk and closes the descriptor. The entry still has to be committed.
+   */
+  synchronized long finish() throws IOException {
+    if (closed) {
+      throw new IOException("Media writer is already closed");
+    }
+    closed = true;
+    try {
+      if (out instanceof RNFSFileTransformer.TransformOutputStream) {
+        ((RNFSFileTransformer.TransformOutputStream) out).finish();
+      }
+      fileStream.getFD().sync();
+    } finally {
+      closeDescriptor();
+    }
+    return bytesWritten;
+  }
+
+  /**
+   * Closes the descriptor without flushing, the entry is about to be deleted.
+   */
+  synchronized void abort() {
+    if (closed) return;
+    closed = true;
+    closeDescriptor();
+  }
+
+  private void closeDescriptor() {
+    try {
+      descriptor.close();
+    } catch (IOException e) {
+      Log.e("RNFS2", "Failed to close media writer: " + e.getMessage());
+    }
+  }
+}
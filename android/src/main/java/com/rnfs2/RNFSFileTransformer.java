@@ -1,10 +1,190 @@
 package com.rnfs2;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
 public class RNFSFileTransformer {
   public interface FileTransformer {
     public byte[] onWriteFile(byte[] data);
     public byte[] onReadFile(byte[] data);
   }
 
+  /**
+   * Transforms one file as a sequence of chunks. transform() is called for every chunk in order and must
+   * consume all of its remaining bytes; finish() is called once after the last chunk. The returned
+   * buffers are read from position to limit and may be reused by the next call.
+   */
+  public interface StreamTransformer {
+    public ByteBuffer transform(ByteBuffer input);
+    public ByteBuffer finish();
+  }
+
+  /**
+   * Streaming counterpart of FileTransformer, creating a fresh StreamTransformer per file so files of
+   * any size are processed in constant memory.
+   */
+  public interface StreamingFileTransformer {
+    public StreamTransformer onWriteStream();
+    public StreamTransformer onReadStream();
+  }
+
+  /**
+   * Marks a StreamingFileTransformer whose write streams can be concatenated: a file built by several
+   * appends, each written through its own onWriteStream(), still reads back through a single
+   * onReadStream(). Appending with transformFile is only allowed for such transformers.
+   */
+  public interface AppendableStreamingFileTransformer extends StreamingFileTransformer {
+  }
+
   public static RNFSFileTransformer.FileTransformer sharedFileTransformer;
+  public static RNFSFileTransformer.StreamingFileTransformer sharedStreamingFileTransformer;
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  /**
+   * @return the transformer for data being written to storage, preferring the streaming contract
+   */
+  public static StreamTransformer getWriteTransformer() {
+    if (sharedStreamingFileTransformer != null) {
+      return sharedStreamingFileTransformer.onWriteStream();
+    }
+    if (sharedFileTransformer != null) {
+      return new BufferingStreamTransformer(sharedFileTransformer, true);
+    }
+    throw new IllegalStateException("Write with transform was specified but the shared file transformer is not set");
+  }
+
+  /**
+   * @return the transformer for data being read from storage, preferring the streaming contract
+   */
+  public static StreamTransformer getReadTransformer() {
+    if (sharedStreamingFileTransformer != null) {
+      return sharedStreamingFileTransformer.onReadStream();
+    }
+    if (sharedFileTransformer != null) {
+      return new BufferingStreamTransformer(sharedFileTransformer, false);
+    }
+    throw new IllegalStateException("Read with transform was specified but the shared file transformer is not set");
+  }
+
+  /**
+   * @return whether transformed data can be appended to an already transformed file
+   */
+  public static boolean canAppend() {
+    return sharedStreamingFileTransformer instanceof AppendableStreamingFileTransformer;
+  }
+
+  /**
+   * Pipes input through the transformer into output.
+   *
+   * @return the number of bytes written to output
+   */
+  public static long transform(InputStream input, OutputStream output, StreamTransformer transformer) throws IOException {
+    TransformOutputStream transformed = new TransformOutputStream(output, transformer);
+    byte[] buffer = new byte[CHUNK_SIZE];
+    int count;
+    while ((count = input.read(buffer)) != -1) {
+      transformed.write(buffer, 0, count);
+    }
+    transformed.finish();
+    return transformed.bytesWritten;
+  }
+
+  static void writeBuffer(OutputStream output, ByteBuffer buffer) throws IOException {
+    if (buffer.hasArray()) {
+      output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      buffer.position(buffer.limit());
+      return;
+    }
+
+    byte[] chunk = new byte[Math.min(buffer.remaining(), CHUNK_SIZE)];
+    while (buffer.hasRemaining()) {
+      int count = Math.min(buffer.remaining(), chunk.length);
+      buffer.get(chunk, 0, count);
+      output.write(chunk, 0, count);
+    }
+  }
+
+  /**
+   * Transforms everything written to it before passing it on. finish() (or close()) flushes the
+   * transformer's trailing output.
+   */
+  public static class TransformOutputStream extends FilterOutputStream {
+    private final StreamTransformer transformer;
+    private boolean finished;
+    long bytesWritten;
+
+    public TransformOutputStream(OutputStream out, StreamTransformer transformer) {
+      super(out);
+      this.transformer = transformer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      writeTransformed(transformer.transform(ByteBuffer.wrap(b, off, len)));
+    }
+
+    public void finish() throws IOException {
+      if (finished) return;
+      finished = true;
+      writeTransformed(transformer.finish());
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        finish();
+      } finally {
+        out.close();
+      }
+    }
+
+    private void writeTransformed(ByteBuffer buffer) throws IOException {
+      if (buffer == null) return;
+      bytesWritten += buffer.remaining();
+      writeBuffer(out, buffer);
+    }
+  }
+
+  /**
+   * Adapts a whole-file FileTransformer to the streaming contract. The file is still held in memory, so
+   * this only keeps transformers written against the old interface working.
+   */
+  private static class BufferingStreamTransformer implements StreamTransformer {
+    private final FileTransformer transformer;
+    private final boolean isWrite;
+    private final ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+
+    BufferingStreamTransformer(FileTransformer transformer, boolean isWrite) {
+      this.transformer = transformer;
+      this.isWrite = isWrite;
+    }
+
+    @Override
+    public ByteBuffer transform(ByteBuffer input) {
+      try {
+        writeBuffer(buffered, input);
+      } catch (IOException e) {
+        // ByteArrayOutputStream does not throw
+      }
+      return EMPTY;
+    }
+
+    @Override
+    public ByteBuffer finish() {
+      byte[] data = buffered.toByteArray();
+      return ByteBuffer.wrap(isWrite ? transformer.onWriteFile(data) : transformer.onReadFile(data));
+    }
+  }
 }
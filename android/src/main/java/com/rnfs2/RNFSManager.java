@@ -2,15 +2,18 @@ package com.rnfs2;
 
 import android.content.ContentResolver;
 import android.content.res.AssetFileDescriptor;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
 import android.os.StatFs;
-import android.provider.DocumentsContract;
-import android.provider.MediaStore;
-import android.provider.OpenableColumns;
+import android.os.SystemClock;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
 import android.util.Base64;
-import android.util.SparseArray;
+import android.util.Log;
 import android.media.MediaScannerConnection;
 
 import androidx.annotation.NonNull;
@@ -21,31 +24,63 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
+import com.facebook.react.modules.blob.BlobModule;
 import com.facebook.react.modules.core.RCTNativeAppEventEmitter;
 
+import com.rnfs2.Utils.FileDescription;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
 
 @ReactModule(name = RNFSManager.MODULE_NAME)
 public class RNFSManager extends ReactContextBaseJavaModule {
 
   static final String MODULE_NAME = "RNFSManager";
 
+  private static final int DEFAULT_SCAN_TIMEOUT = 30000;
+  private static final int DEFAULT_WATCH_WINDOW = 250;
+  private static final int DEFAULT_WATCH_MAX_DIRECTORIES = 256;
+  private static final int DEFAULT_UNZIP_CONCURRENCY = 4;
+  private static final int DEFAULT_ZIP_PROGRESS_INTERVAL = 250;
   private static final String RNFSDocumentDirectoryPath = "RNFSDocumentDirectoryPath";
   private static final String RNFSExternalDirectoryPath = "RNFSExternalDirectoryPath";
   private static final String RNFSExternalStorageDirectoryPath = "RNFSExternalStorageDirectoryPath";
@@ -59,13 +94,27 @@ public class RNFSManager extends ReactContextBaseJavaModule {
   private static final String RNFSFileTypeRegular = "RNFSFileTypeRegular";
   private static final String RNFSFileTypeDirectory = "RNFSFileTypeDirectory";
 
-  private SparseArray<Downloader> downloaders = new SparseArray<>();
+  private final DownloadJobRegistry downloadJobs = new DownloadJobRegistry();
+  private DownloadValidatorStore downloadValidatorStore;
+  private final Map<String, InFlightDownload> inFlightDownloads = new HashMap<>();
+  private final Map<Integer, Uploader> uploaders = new ConcurrentHashMap<>();
+  // Shared budget for downloads that opt in with throttled, unlimited until set.
+  private final BandwidthLimiter downloadBandwidthBudget = new BandwidthLimiter(0);
+
+  private final ContentUriResolver contentUriResolver;
+  private CacheManager cacheManager;
+  private ContentStore contentStore;
+  private final Map<Integer, ZipArchiver> zipJobs = new ConcurrentHashMap<>();
+  private final Map<Integer, FileWatcher> fileWatchers = new ConcurrentHashMap<>();
+  private HandlerThread fileWatcherThread;
+  private Handler fileWatcherHandler;
 
   private final ReactApplicationContext reactContext;
 
   public RNFSManager(ReactApplicationContext reactContext) {
     super(reactContext);
     this.reactContext = reactContext;
+    this.contentUriResolver = new ContentUriResolver(reactContext.getContentResolver());
   }
 
   @NonNull
@@ -74,6 +123,33 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     return MODULE_NAME;
   }
 
+  @Override
+  public void invalidate() {
+    contentUriResolver.close();
+    synchronized (this) {
+      if (cacheManager != null) {
+        reactContext.getApplicationContext().unregisterComponentCallbacks(cacheManager);
+        cacheManager.close();
+        cacheManager = null;
+      }
+    }
+    for (ZipArchiver archiver : zipJobs.values()) {
+      archiver.cancel();
+    }
+    for (FileWatcher watcher : fileWatchers.values()) {
+      watcher.stop();
+    }
+    fileWatchers.clear();
+    synchronized (this) {
+      if (fileWatcherThread != null) {
+        fileWatcherThread.quitSafely();
+        fileWatcherThread = null;
+        fileWatcherHandler = null;
+      }
+    }
+    super.invalidate();
+  }
+
   private Uri getFileUri(String filepath, boolean isDirectoryAllowed) throws IORejectionException {
     Uri uri = Uri.parse(filepath);
     if (uri.getScheme() == null) {
@@ -92,12 +168,11 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     String originalFilepath = filepath;
     if (Objects.equals(uri.getScheme(), "content")) {
       try {
-        Cursor cursor = reactContext.getContentResolver().query(uri, null, null, null, null);
-        if (cursor.moveToFirst()) {
-          originalFilepath = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATA));
+        ContentUriResolver.Info info = contentUriResolver.resolve(uri);
+        if (info.dataPath != null) {
+          originalFilepath = info.dataPath;
         }
-        cursor.close();
-      } catch (IllegalArgumentException ignored) {
+      } catch (IllegalArgumentException | SecurityException ignored) {
       }
     }
     return originalFilepath;
@@ -107,8 +182,14 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     Uri uri = getFileUri(filepath, false);
     InputStream stream;
     try {
-      stream = reactContext.getContentResolver().openInputStream(uri);
+      stream = openContentFileDirectly(uri);
+      if (stream == null) {
+        stream = reactContext.getContentResolver().openInputStream(uri);
+      }
     } catch (FileNotFoundException ex) {
+      if ("content".equals(uri.getScheme())) {
+        contentUriResolver.invalidate(uri);
+      }
       throw new IORejectionException("ENOENT", "ENOENT: " + ex.getMessage() + ", open '" + filepath + "'");
     }
     if (stream == null) {
@@ -117,12 +198,44 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     return stream;
   }
 
+  /**
+   * Before scoped storage a content URI whose backing file is already known (from an earlier stat) can
+   * be read straight from disk, skipping the provider round trip.
+   *
+   * @return null when the URI has to be opened through the provider
+   */
+  private InputStream openContentFileDirectly(Uri uri) {
+    if (!"content".equals(uri.getScheme()) || android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.Q) {
+      return null;
+    }
+
+    ContentUriResolver.Info info = contentUriResolver.peek(uri);
+    if (info == null || info.dataPath == null) {
+      return null;
+    }
+
+    File file = new File(info.dataPath);
+    if (!file.canRead()) {
+      return null;
+    }
+    try {
+      return new FileInputStream(file);
+    } catch (FileNotFoundException e) {
+      return null;
+    }
+  }
+
   private String getWriteAccessByAPILevel() {
     return android.os.Build.VERSION.SDK_INT <= android.os.Build.VERSION_CODES.P ? "w" : "rwt";
   }
 
   private OutputStream getOutputStream(String filepath, boolean append) throws IORejectionException {
-    Uri uri = getFileUri(filepath, false);
+    final Uri uri = getFileUri(filepath, false);
+    boolean isContentUri = "content".equals(uri.getScheme());
+    if (isContentUri) {
+      contentUriResolver.invalidate(uri);
+    }
+
     OutputStream stream;
     try {
       stream = reactContext.getContentResolver().openOutputStream(uri, append ? "wa" : getWriteAccessByAPILevel());
@@ -132,7 +245,43 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     if (stream == null) {
       throw new IORejectionException("ENOENT", "ENOENT: could not open an output stream for '" + filepath + "'");
     }
-    return stream;
+    if (!isContentUri) {
+      return stream;
+    }
+
+    // A stat while the stream is open would cache a size that is stale once it closes.
+    return new FilterOutputStream(stream) {
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          contentUriResolver.invalidate(uri);
+        }
+      }
+    };
+  }
+
+  /**
+   * Opens an output stream that passes everything through the shared write transformer when requested.
+   */
+  private OutputStream getOutputStream(String filepath, boolean append, boolean transform) throws IORejectionException {
+    // Every append starts a new write stream, which only reads back if the transformer allows concatenation.
+    if (transform && append && !RNFSFileTransformer.canAppend()) {
+      throw new IORejectionException("ENOTSUP", "ENOTSUP: the shared file transformer does not support appending, open '" + filepath + "'");
+    }
+    RNFSFileTransformer.StreamTransformer transformer = transform ? RNFSFileTransformer.getWriteTransformer() : null;
+    OutputStream stream = getOutputStream(filepath, append);
+    return transformer != null ? new RNFSFileTransformer.TransformOutputStream(stream, transformer) : stream;
+  }
+
+  private static boolean shouldTransform(ReadableMap options) {
+    return options != null && options.hasKey("transformFile") && options.getBoolean("transformFile");
   }
 
   private static byte[] getInputStreamBytes(InputStream inputStream) throws IOException {
@@ -155,13 +304,51 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     return bytesResult;
   }
 
+  /**
+   * @return the charset of options.contentEncoding, or null when the content is base64
+   */
+  private static Charset getContentCharset(ReadableMap options) throws IORejectionException {
+    if (options == null || !options.hasKey("contentEncoding")) {
+      return null;
+    }
+
+    String encoding = options.getString("contentEncoding");
+    switch (encoding) {
+      case "base64":
+        return null;
+      case "utf8":
+        return StandardCharsets.UTF_8;
+      // Like the base64 path in JS (and on iOS), ascii keeps each byte as one code point.
+      case "ascii":
+      case "latin1":
+        return StandardCharsets.ISO_8859_1;
+      default:
+        throw new IORejectionException("EINVAL", "EINVAL: invalid encoding '" + encoding + "'");
+    }
+  }
+
+  /**
+   * Writes content that is either base64 or, with a contentEncoding, text that is encoded here instead
+   * of being converted to base64 in JS.
+   */
+  private static void writeContent(OutputStream outputStream, String content, Charset charset) throws IOException {
+    if (charset == null) {
+      outputStream.write(Base64.decode(content, Base64.DEFAULT));
+      return;
+    }
+
+    Writer writer = new OutputStreamWriter(outputStream, charset);
+    writer.write(content);
+    writer.flush();
+  }
+
   @ReactMethod
   public void writeFile(String filepath, String base64Content, ReadableMap options, Promise promise) {
     try {
-      byte[] bytes = Base64.decode(base64Content, Base64.DEFAULT);
+      Charset charset = getContentCharset(options);
 
-      OutputStream outputStream = getOutputStream(filepath, false);
-      outputStream.write(bytes);
+      OutputStream outputStream = getOutputStream(filepath, false, shouldTransform(options));
+      writeContent(outputStream, base64Content, charset);
       outputStream.close();
 
       promise.resolve(null);
@@ -172,12 +359,12 @@ public class RNFSManager extends ReactContextBaseJavaModule {
   }
 
   @ReactMethod
-  public void appendFile(String filepath, String base64Content, Promise promise) {
+  public void appendFile(String filepath, String base64Content, ReadableMap options, Promise promise) {
     try {
-      byte[] bytes = Base64.decode(base64Content, Base64.DEFAULT);
+      Charset charset = getContentCharset(options);
 
-      OutputStream outputStream = getOutputStream(filepath, true);
-      outputStream.write(bytes);
+      OutputStream outputStream = getOutputStream(filepath, true, shouldTransform(options));
+      writeContent(outputStream, base64Content, charset);
       outputStream.close();
 
       promise.resolve(null);
@@ -221,10 +408,37 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     }
   }
 
-  @ReactMethod
-  public void readFile(String filepath, Promise promise) {
+  private byte[] readFileBytes(String filepath, ReadableMap options) throws Exception {
     try (InputStream inputStream = getInputStream(filepath)) {
-      byte[] inputData = getInputStreamBytes(inputStream);
+      if (shouldTransform(options)) {
+        ByteArrayOutputStream transformed = new ByteArrayOutputStream();
+        RNFSFileTransformer.transform(inputStream, transformed, RNFSFileTransformer.getReadTransformer());
+        return transformed.toByteArray();
+      }
+      return getInputStreamBytes(inputStream);
+    }
+  }
+
+  @ReactMethod
+  public void readFile(String filepath, ReadableMap options, Promise promise) {
+    try {
+      Charset charset = getContentCharset(options);
+      if (charset != null && !shouldTransform(options)) {
+        try (InputStream inputStream = getInputStream(filepath)) {
+          promise.resolve(decodeText(inputStream, charset));
+        }
+        return;
+      }
+
+      byte[] inputData = readFileBytes(filepath, options);
+      if (charset != null) {
+        promise.resolve(charset.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE)
+          .decode(ByteBuffer.wrap(inputData))
+          .toString());
+        return;
+      }
       String base64Content = Base64.encodeToString(inputData, Base64.NO_WRAP);
 
       promise.resolve(base64Content);
@@ -234,6 +448,107 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     }
   }
 
+  /**
+   * Reads the file (or length bytes at position) into the blob registry so the data reaches JS as a
+   * Blob reference instead of a base64 string.
+   */
+  @ReactMethod
+  public void readFileAsBlob(String filepath, ReadableMap options, Promise promise) {
+    BlobModule blobModule = reactContext.getNativeModule(BlobModule.class);
+    if (blobModule == null) {
+      promise.reject("ENOTSUP", "ENOTSUP: the BlobModule is not available");
+      return;
+    }
+
+    try {
+      byte[] data;
+      if (options.hasKey("length")) {
+        int length = options.getInt("length");
+        long position = options.hasKey("position") ? (long) options.getDouble("position") : 0;
+        // With a transformer the range is one of the decoded content, the file is decoded as a whole first.
+        try (InputStream inputStream = shouldTransform(options)
+          ? new ByteArrayInputStream(readFileBytes(filepath, options))
+          : getInputStream(filepath)) {
+          data = readRange(inputStream, position, length);
+        }
+      } else {
+        data = readFileBytes(filepath, options);
+      }
+
+      WritableMap blob = Arguments.createMap();
+      blob.putString("blobId", blobModule.store(data));
+      blob.putInt("offset", 0);
+      blob.putInt("size", data.length);
+      blob.putString("type", options.hasKey("type") ? options.getString("type") : "");
+      promise.resolve(blob);
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, filepath, ex);
+    }
+  }
+
+  /**
+   * Decodes the stream straight into a String, without holding the raw bytes or a base64 copy.
+   */
+  private static String decodeText(InputStream inputStream, Charset charset) throws IOException {
+    CharsetDecoder decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    Reader reader = new InputStreamReader(inputStream, decoder);
+
+    StringBuilder text = new StringBuilder(Math.max(inputStream.available(), 16));
+    char[] buffer = new char[8192];
+    int count;
+    while ((count = reader.read(buffer)) != -1) {
+      text.append(buffer, 0, count);
+    }
+    return text.toString();
+  }
+
+  private static byte[] readRange(InputStream inputStream, long position, int length) throws IOException {
+    long skipped = 0;
+    while (skipped < position) {
+      long count = inputStream.skip(position - skipped);
+      if (count <= 0) break;
+      skipped += count;
+    }
+
+    byte[] buffer = new byte[length];
+    int bytesRead = 0;
+    int count;
+    while (bytesRead < length && (count = inputStream.read(buffer, bytesRead, length - bytesRead)) != -1) {
+      bytesRead += count;
+    }
+    return bytesRead == length ? buffer : Arrays.copyOf(buffer, bytesRead);
+  }
+
+  @ReactMethod
+  public void writeFileFromBlob(String filepath, ReadableMap blob, ReadableMap options, Promise promise) {
+    BlobModule blobModule = reactContext.getNativeModule(BlobModule.class);
+    if (blobModule == null) {
+      promise.reject("ENOTSUP", "ENOTSUP: the BlobModule is not available");
+      return;
+    }
+
+    try {
+      byte[] bytes = blobModule.resolve(blob);
+      if (bytes == null) {
+        promise.reject("EINVAL", "EINVAL: the blob was released or is invalid");
+        return;
+      }
+
+      boolean append = options.hasKey("append") && options.getBoolean("append");
+      try (OutputStream outputStream = getOutputStream(filepath, append, shouldTransform(options))) {
+        outputStream.write(bytes);
+      }
+
+      promise.resolve(null);
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, filepath, ex);
+    }
+  }
+
   @ReactMethod
   public void read(String filepath, int length, int position, Promise promise) {
     try (InputStream inputStream = getInputStream(filepath)) {
@@ -302,7 +617,7 @@ public class RNFSManager extends ReactContextBaseJavaModule {
       File inFile = new File(filepath);
 
       if (!inFile.renameTo(new File(destPath))) {
-        copyFile(filepath, destPath);
+        copyFile(filepath, destPath, false);
         inFile.delete();
       }
 
@@ -316,7 +631,14 @@ public class RNFSManager extends ReactContextBaseJavaModule {
   @ReactMethod
   public void copyFile(String filepath, String destPath, ReadableMap options, Promise promise) {
     try {
-      copyFile(filepath, destPath);
+      boolean transform = shouldTransform(options);
+      boolean preferLink = options != null && options.hasKey("preferLink") && options.getBoolean("preferLink");
+      if (preferLink && !transform && linkFile(filepath, destPath)) {
+        promise.resolve(null);
+        return;
+      }
+
+      copyFile(filepath, destPath, transform);
 
       promise.resolve(null);
     } catch (Exception ex) {
@@ -325,9 +647,49 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     }
   }
 
-  private void copyFile(String filepath, String destPath) throws IOException, IORejectionException {
+  /**
+   * Replaces destPath with a hard link to filepath when both are plain paths on the same volume.
+   *
+   * @return false when a regular copy is needed
+   */
+  private boolean linkFile(String filepath, String destPath) {
+    if (!hasLinkSupport()) {
+      return false;
+    }
+    if (Uri.parse(filepath).getScheme() != null || Uri.parse(destPath).getScheme() != null) {
+      return false;
+    }
+
+    File source = new File(filepath);
+    File dest = new File(destPath);
+    File destDirectory = dest.getAbsoluteFile().getParentFile();
+    if (!source.isFile() || destDirectory == null) {
+      return false;
+    }
+
+    try {
+      if (Os.stat(source.getAbsolutePath()).st_dev != Os.stat(destDirectory.getAbsolutePath()).st_dev) {
+        return false;
+      }
+      if (dest.exists() && !dest.delete()) {
+        return false;
+      }
+      Os.link(source.getAbsolutePath(), dest.getAbsolutePath());
+      return true;
+    } catch (ErrnoException e) {
+      // ie a file system without hard links, such as FAT on sdcards.
+      return false;
+    }
+  }
+
+  private void copyFile(String filepath, String destPath, boolean transform) throws IOException, IORejectionException {
     try (InputStream in = getInputStream(filepath)) {
       try (OutputStream out = getOutputStream(destPath, false)) {
+        if (transform) {
+          RNFSFileTransformer.transform(in, out, RNFSFileTransformer.getWriteTransformer());
+          return;
+        }
+
         byte[] buffer = new byte[1024];
         int length;
         while ((length = in.read(buffer)) > 0) {
@@ -337,6 +699,70 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     }
   }
 
+  @ReactMethod
+  public void link(String existingPath, String newPath, Promise promise) {
+    if (!hasLinkSupport()) {
+      rejectLinkNotSupported(promise, "link");
+      return;
+    }
+    try {
+      Os.link(existingPath, newPath);
+      promise.resolve(null);
+    } catch (ErrnoException ex) {
+      reject(promise, existingPath, getErrnoRejection(ex, "link", existingPath, newPath));
+    }
+  }
+
+  @ReactMethod
+  public void symlink(String target, String path, Promise promise) {
+    if (!hasLinkSupport()) {
+      rejectLinkNotSupported(promise, "symlink");
+      return;
+    }
+    try {
+      Os.symlink(target, path);
+      promise.resolve(null);
+    } catch (ErrnoException ex) {
+      reject(promise, path, getErrnoRejection(ex, "symlink", target, path));
+    }
+  }
+
+  @ReactMethod
+  public void readlink(String path, Promise promise) {
+    if (!hasLinkSupport()) {
+      rejectLinkNotSupported(promise, "readlink");
+      return;
+    }
+    try {
+      promise.resolve(Os.readlink(path));
+    } catch (ErrnoException ex) {
+      reject(promise, path, getErrnoRejection(ex, "readlink", path, null));
+    }
+  }
+
+  /**
+   * android.system.Os, which backs link, symlink and readlink, is only available from API 21.
+   */
+  private static boolean hasLinkSupport() {
+    return android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP;
+  }
+
+  private static void rejectLinkNotSupported(Promise promise, String syscall) {
+    promise.reject("ENOTSUP", "ENOTSUP: " + syscall + " requires Android 5.0 (API 21) or newer");
+  }
+
+  private static IORejectionException getErrnoRejection(ErrnoException ex, String syscall, String path, String dest) {
+    String code = OsConstants.errnoName(ex.errno);
+    if (code == null) {
+      code = "EUNSPECIFIED";
+    }
+    String message = code + ": " + Os.strerror(ex.errno) + ", " + syscall + " '" + path + "'";
+    if (dest != null) {
+      message += " -> '" + dest + "'";
+    }
+    return new IORejectionException(code, message);
+  }
+
   @ReactMethod
   public void readDir(String directory, Promise promise) {
     try {
@@ -403,29 +829,10 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     ContentResolver resolver = reactContext.getContentResolver();
     WritableMap statMap = Arguments.createMap();
 
-    long size = -1L;
-    Long lastModified = null;
-
-    // Query for metadata. Prevent filtering for specific columns as each content resolver
-    // has different columns (ie missing last modified)
-    Cursor cursor = resolver.query(uri, null, null, null, null);
-    if (cursor != null) {
-      try {
-        if (cursor.moveToFirst()) {
-          int sizeIdx = cursor.getColumnIndex(OpenableColumns.SIZE);
-          if (sizeIdx != -1) {
-            size = cursor.getLong(sizeIdx);
-          }
-
-          int lmIdx = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_LAST_MODIFIED);
-          if (lmIdx != -1) {
-            lastModified = cursor.getLong(lmIdx);
-          }
-        }
-      } finally {
-        cursor.close();
-      }
-    }
+    // Cached metadata, queried with only the columns the provider is expected to have
+    ContentUriResolver.Info info = contentUriResolver.resolve(uri);
+    long size = info.size;
+    Long lastModified = info.lastModified;
 
     // Fallback for size via AssetFileDescriptor
     if (size < 0) {
@@ -436,9 +843,11 @@ public class RNFSManager extends ReactContextBaseJavaModule {
       }
     }
 
-    // Existence check - throws if file doesn't exist
-    try (InputStream is = resolver.openInputStream(uri)) {
-      if (is == null) throw new FileNotFoundException("File does not exist");
+    // Existence check - throws if file doesn't exist. A row returned by the provider is enough.
+    if (!info.exists) {
+      try (InputStream is = resolver.openInputStream(uri)) {
+        if (is == null) throw new FileNotFoundException("File does not exist");
+      }
     }
 
     int mtimeSec = lastModified != null ? (int) (lastModified / 1000) : 0;
@@ -455,6 +864,12 @@ public class RNFSManager extends ReactContextBaseJavaModule {
   @ReactMethod
   public void unlink(String filepath, Promise promise) {
     try {
+      Uri uri = Uri.parse(filepath);
+      if ("content".equals(uri.getScheme())) {
+        // A content URI is not deleted here, but whatever was cached for it may be stale already.
+        contentUriResolver.invalidate(uri);
+      }
+
       File file = new File(filepath);
 
       if (!file.exists()) throw new Exception("File does not exist");
@@ -504,6 +919,8 @@ public class RNFSManager extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void downloadFile(final ReadableMap options, final Promise promise) {
+    InFlightDownload registeredInFlight = null;
+    Integer registeredJobId = null;
     try {
       File file = new File(options.getString("toFile"));
       URL url = new URL(options.getString("fromUrl"));
@@ -515,6 +932,46 @@ public class RNFSManager extends ReactContextBaseJavaModule {
       int connectionTimeout = options.getInt("connectionTimeout");
       boolean hasBeginCallback = options.getBoolean("hasBeginCallback");
       boolean hasProgressCallback = options.getBoolean("hasProgressCallback");
+      boolean hasMediaStoreTarget = options.hasKey("mediaStore") && !options.isNull("mediaStore");
+      boolean isConditional = options.hasKey("conditional") && options.getBoolean("conditional");
+
+      boolean isThrottled = (options.hasKey("throttled") && options.getBoolean("throttled"))
+        || (options.hasKey("maxBytesPerSecond") && options.getDouble("maxBytesPerSecond") > 0);
+
+      // Conditional, transformed and MediaStore downloads depend on their own destination, so they never
+      // share a transfer. Throttled ones neither, an interactive download would inherit a prefetch's
+      // throttle or the prefetch would escape its budget.
+      boolean canCoalesce = options.hasKey("coalesce") && options.getBoolean("coalesce")
+        && !hasMediaStoreTarget && !isConditional && !shouldTransform(options) && !isThrottled;
+
+      InFlightDownload.Participant participant = new InFlightDownload.Participant(jobId, file, promise, hasBeginCallback, hasProgressCallback);
+      InFlightDownload shared = null;
+
+      if (canCoalesce) {
+        // Every option that changes how the transfer runs is part of the key, a follower gets exactly the
+        // transfer it asked for.
+        String coalesceKey = url.toString() + "\n" + new TreeMap<>(headers.toHashMap()).toString()
+          + "\n" + readTimeout + "/" + connectionTimeout + "/" + progressInterval + "/" + progressDivider
+          + "/" + (options.hasKey("decompress") && options.getBoolean("decompress"));
+        synchronized (inFlightDownloads) {
+          InFlightDownload existing = inFlightDownloads.get(coalesceKey);
+          if (existing != null && !existing.rateLimited) {
+            existing.followers.add(participant);
+            if (existing.begun && hasBeginCallback) {
+              sendDownloadBegin(jobId, existing.beginStatusCode, existing.beginContentLength, existing.beginHeaders);
+            }
+            return;
+          }
+
+          // A transfer that got its own rate limit takes no followers, this job then runs on its own.
+          if (existing == null) {
+            shared = new InFlightDownload(coalesceKey, participant);
+            inFlightDownloads.put(coalesceKey, shared);
+            registeredInFlight = shared;
+          }
+        }
+      }
+      final InFlightDownload inFlight = shared;
 
       DownloadParams params = new DownloadParams();
 
@@ -525,15 +982,56 @@ public class RNFSManager extends ReactContextBaseJavaModule {
       params.progressDivider = progressDivider;
       params.readTimeout = readTimeout;
       params.connectionTimeout = connectionTimeout;
+      params.enqueuedAt = SystemClock.elapsedRealtime();
+      params.decompress = options.hasKey("decompress") && options.getBoolean("decompress");
+      params.transformer = shouldTransform(options) ? RNFSFileTransformer.getWriteTransformer() : null;
+
+      if (options.hasKey("maxBytesPerSecond") && options.getDouble("maxBytesPerSecond") > 0) {
+        params.bandwidthLimiter = new BandwidthLimiter((long) options.getDouble("maxBytesPerSecond"));
+      } else if (options.hasKey("throttled") && options.getBoolean("throttled")) {
+        params.bandwidthLimiter = downloadBandwidthBudget;
+      }
+
+      if (isConditional) {
+        params.validatorStore = getDownloadValidatorStore();
+      }
+
+      final ContentResolver resolver = reactContext.getContentResolver();
+      final Uri mediaUri = hasMediaStoreTarget
+        ? openMediaStoreDestination(options.getMap("mediaStore"), params, resolver)
+        : null;
 
       params.onTaskCompleted = new DownloadParams.OnTaskCompleted() {
         public void onTaskCompleted(DownloadResult res) {
+          downloadJobs.complete(jobId, res);
+
+          if (mediaUri != null) {
+            boolean hasBody = res.exception == null && res.statusCode >= 200 && res.statusCode < 300;
+            if (hasBody && !RNFSMediaStoreManager.commitPendingMediaFile(resolver, mediaUri)) {
+              res.exception = new IOException("Failed to commit media file (unmark as pending - 0 rows updated)");
+            }
+            if (!hasBody || res.exception != null) {
+              RNFSMediaStoreManager.cleanupMediaStoreEntry(mediaUri, resolver);
+            }
+          }
+
+          if (inFlight != null) {
+            completeInFlightDownload(inFlight, res);
+            return;
+          }
+
           if (res.exception == null) {
             WritableMap infoMap = Arguments.createMap();
 
             infoMap.putInt("jobId", jobId);
             infoMap.putInt("statusCode", res.statusCode);
             infoMap.putDouble("bytesWritten", (double)res.bytesWritten);
+            infoMap.putDouble("bytesReceived", (double)res.bytesReceived);
+            infoMap.putBoolean("notModified", res.notModified);
+            infoMap.putMap("metrics", getDownloadMetricsMap(res.metrics));
+            if (mediaUri != null && res.statusCode >= 200 && res.statusCode < 300) {
+              infoMap.putString("mediaUri", mediaUri.toString());
+            }
 
             promise.resolve(infoMap);
           } else {
@@ -542,113 +1040,564 @@ public class RNFSManager extends ReactContextBaseJavaModule {
         }
       };
 
-      if (hasBeginCallback) {
+      if (inFlight != null) {
+        // Followers may attach at any time, so events are always observed and fanned out per job.
         params.onDownloadBegin = new DownloadParams.OnDownloadBegin() {
           public void onDownloadBegin(int statusCode, long contentLength, Map<String, String> headers) {
-            WritableMap headersMap = Arguments.createMap();
-
-            for (Map.Entry<String, String> entry : headers.entrySet()) {
-              headersMap.putString(entry.getKey(), entry.getValue());
+            List<InFlightDownload.Participant> participants;
+            synchronized (inFlightDownloads) {
+              inFlight.begun = true;
+              inFlight.beginStatusCode = statusCode;
+              inFlight.beginContentLength = contentLength;
+              inFlight.beginHeaders = headers;
+              participants = inFlight.getParticipants();
             }
 
-            WritableMap data = Arguments.createMap();
-
-            data.putInt("jobId", jobId);
-            data.putInt("statusCode", statusCode);
-            data.putDouble("contentLength", (double)contentLength);
-            data.putMap("headers", headersMap);
-
-            sendEvent(getReactApplicationContext(), "DownloadBegin", data);
+            for (InFlightDownload.Participant participant : participants) {
+              if (participant.hasBeginCallback) {
+                sendDownloadBegin(participant.jobId, statusCode, contentLength, headers);
+              }
+            }
           }
         };
-      }
 
-      if (hasProgressCallback) {
         params.onDownloadProgress = new DownloadParams.OnDownloadProgress() {
-          public void onDownloadProgress(long contentLength, long bytesWritten) {
-            WritableMap data = Arguments.createMap();
-
-            data.putInt("jobId", jobId);
-            data.putDouble("contentLength", (double)contentLength);
-            data.putDouble("bytesWritten", (double)bytesWritten);
+          public void onDownloadProgress(long contentLength, long bytesWritten, long bytesReceived) {
+            List<InFlightDownload.Participant> participants;
+            synchronized (inFlightDownloads) {
+              // Progress is only published from the write loop, so the output is open by now.
+              inFlight.writing = true;
+              participants = inFlight.getParticipants();
+            }
 
-            sendEvent(getReactApplicationContext(), "DownloadProgress", data);
+            for (InFlightDownload.Participant participant : participants) {
+              if (participant.hasProgressCallback) {
+                sendDownloadProgress(participant.jobId, contentLength, bytesWritten, bytesReceived);
+              }
+            }
           }
         };
+      } else {
+        if (hasBeginCallback) {
+          params.onDownloadBegin = new DownloadParams.OnDownloadBegin() {
+            public void onDownloadBegin(int statusCode, long contentLength, Map<String, String> headers) {
+              sendDownloadBegin(jobId, statusCode, contentLength, headers);
+            }
+          };
+        }
+
+        if (hasProgressCallback) {
+          params.onDownloadProgress = new DownloadParams.OnDownloadProgress() {
+            public void onDownloadProgress(long contentLength, long bytesWritten, long bytesReceived) {
+              sendDownloadProgress(jobId, contentLength, bytesWritten, bytesReceived);
+            }
+          };
+        }
       }
 
       Downloader downloader = new Downloader();
 
-      downloader.execute(params);
+      // Registered first, a job that fails fast completes (and unregisters) before execute() returns.
+      this.downloadJobs.register(jobId, downloader);
+      registeredJobId = jobId;
 
-      this.downloaders.put(jobId, downloader);
+      downloader.execute(params);
     } catch (Exception ex) {
       ex.printStackTrace();
-      reject(promise, options.getString("toFile"), ex);
+      if (registeredJobId != null) {
+        downloadJobs.unregister(registeredJobId);
+      }
+      if (registeredInFlight != null) {
+        // Followers may have attached already, they would wait forever on a transfer that never starts.
+        DownloadResult res = new DownloadResult();
+        res.exception = ex;
+        completeInFlightDownload(registeredInFlight, res);
+      } else {
+        reject(promise, options.getString("toFile"), ex);
+      }
     }
   }
 
-  @ReactMethod
-  public void stopDownload(int jobId) {
-    Downloader downloader = this.downloaders.get(jobId);
+  private void sendDownloadBegin(int jobId, int statusCode, long contentLength, Map<String, String> headers) {
+    WritableMap headersMap = Arguments.createMap();
 
-    if (downloader != null) {
-      downloader.stop();
+    for (Map.Entry<String, String> entry : headers.entrySet()) {
+      headersMap.putString(entry.getKey(), entry.getValue());
     }
-  }
 
-  @ReactMethod
-  public void pathForBundle(String bundleNamed, Promise promise) {
-    // TODO: Not sure what equivalent would be?
-  }
+    WritableMap data = Arguments.createMap();
 
-  @ReactMethod
-  public void pathForGroup(String bundleNamed, Promise promise) {
-    // TODO: Not sure what equivalent would be?
+    data.putInt("jobId", jobId);
+    data.putInt("statusCode", statusCode);
+    data.putDouble("contentLength", (double)contentLength);
+    data.putMap("headers", headersMap);
+
+    sendEvent(getReactApplicationContext(), "DownloadBegin", data);
   }
 
-  @ReactMethod
-  public void getFSInfo(Promise promise) {
-    File path = Environment.getDataDirectory();
-    StatFs stat = new StatFs(path.getPath());
-    StatFs statEx = new StatFs(Environment.getExternalStorageDirectory().getPath());
-    long totalSpace = stat.getTotalBytes();
-    long freeSpace = stat.getFreeBytes();
-    long totalSpaceEx = statEx.getTotalBytes();
-    long freeSpaceEx = statEx.getFreeBytes();
+  private void sendDownloadProgress(int jobId, long contentLength, long bytesWritten, long bytesReceived) {
+    WritableMap data = Arguments.createMap();
 
-    WritableMap info = Arguments.createMap();
-    info.putDouble("totalSpace", (double) totalSpace);   // Int32 too small, must use Double
-    info.putDouble("freeSpace", (double) freeSpace);
-    info.putDouble("totalSpaceEx", (double) totalSpaceEx);
-    info.putDouble("freeSpaceEx", (double) freeSpaceEx);
-    promise.resolve(info);
+    data.putInt("jobId", jobId);
+    data.putDouble("contentLength", (double)contentLength);
+    data.putDouble("bytesWritten", (double)bytesWritten);
+    data.putDouble("bytesReceived", (double)bytesReceived);
+
+    sendEvent(getReactApplicationContext(), "DownloadProgress", data);
   }
 
-  @ReactMethod
-  public void touch(String filepath, double mtime, double ctime, Promise promise) {
-    try {
-      File file = new File(filepath);
-      promise.resolve(file.setLastModified((long) mtime));
-    } catch (Exception ex) {
-      ex.printStackTrace();
-      reject(promise, filepath, ex);
+  /**
+   * Settles every job attached to a shared transfer. Jobs with their own destination receive a local
+   * copy of the downloaded file before any promise resolves, so no job can move or delete the file
+   * underneath the others.
+   */
+  private void completeInFlightDownload(InFlightDownload inFlight, DownloadResult res) {
+    List<InFlightDownload.Participant> participants;
+    File source;
+    synchronized (inFlightDownloads) {
+      if (inFlightDownloads.get(inFlight.key) == inFlight) {
+        inFlightDownloads.remove(inFlight.key);
+      }
+      participants = inFlight.getParticipants();
+      source = inFlight.transferDest;
     }
-  }
 
-  @ReactMethod
-  public void getAllExternalFilesDirs(Promise promise){
-    File[] allExternalFilesDirs = this.getReactApplicationContext().getExternalFilesDirs(null);
-    WritableArray fs = Arguments.createArray();
-    for (File f : allExternalFilesDirs) {
-      if (f != null) {
-        fs.pushString(f.getAbsolutePath());
+    boolean hasBody = res.exception == null && res.statusCode >= 200 && res.statusCode < 300;
+    boolean sourceIsParticipant = false;
+    Exception[] errors = new Exception[participants.size()];
+
+    for (int i = 0; i < participants.size(); i++) {
+      InFlightDownload.Participant participant = participants.get(i);
+      if (participant.dest.getAbsolutePath().equals(source.getAbsolutePath())) {
+        sourceIsParticipant = true;
+      } else if (hasBody) {
+        try {
+          copyLocalFile(source, participant.dest);
+        } catch (IOException ex) {
+          errors[i] = ex;
+        }
       }
     }
-    promise.resolve(fs);
-  }
 
-  @ReactMethod
+    // The transfer still wrote to a stopped job's destination, that job asked for no file.
+    if (!sourceIsParticipant && source.exists() && !source.delete()) {
+      Log.w("RNFS2", "Could not remove the download of a stopped job: " + source);
+    }
+
+    for (int i = 0; i < participants.size(); i++) {
+      InFlightDownload.Participant participant = participants.get(i);
+      Exception exception = res.exception != null ? res.exception : errors[i];
+
+      if (exception == null) {
+        WritableMap infoMap = Arguments.createMap();
+
+        infoMap.putInt("jobId", participant.jobId);
+        infoMap.putInt("statusCode", res.statusCode);
+        infoMap.putDouble("bytesWritten", (double)res.bytesWritten);
+        infoMap.putDouble("bytesReceived", (double)res.bytesReceived);
+        infoMap.putBoolean("notModified", res.notModified);
+        infoMap.putMap("metrics", getDownloadMetricsMap(res.metrics));
+
+        participant.promise.resolve(infoMap);
+      } else {
+        reject(participant.promise, participant.dest.getPath(), exception);
+      }
+    }
+  }
+
+  private static WritableMap getDownloadMetricsMap(DownloadMetrics metrics) {
+    WritableMap metricsMap = Arguments.createMap();
+
+    metricsMap.putDouble("queueWaitMillis", (double) metrics.queueWaitMillis);
+    metricsMap.putDouble("dnsMillis", (double) metrics.dnsMillis);
+    metricsMap.putDouble("connectMillis", (double) metrics.connectMillis);
+    metricsMap.putDouble("firstByteMillis", (double) metrics.firstByteMillis);
+    metricsMap.putDouble("transferMillis", (double) metrics.transferMillis);
+    metricsMap.putDouble("bytes", (double) metrics.bytes);
+    metricsMap.putDouble("throughput", metrics.getThroughput());
+
+    return metricsMap;
+  }
+
+  static void copyLocalFile(File source, File dest) throws IOException {
+    try (FileChannel in = new FileInputStream(source).getChannel();
+         FileChannel out = new FileOutputStream(dest).getChannel()) {
+      long size = in.size();
+      long position = 0;
+      while (position < size) {
+        long transferred = in.transferTo(position, size - position, out);
+        // The source shrank while being copied, there is nothing left to transfer.
+        if (transferred <= 0) break;
+        position += transferred;
+      }
+    }
+  }
+
+  private synchronized DownloadValidatorStore getDownloadValidatorStore() {
+    if (downloadValidatorStore == null) {
+      downloadValidatorStore = new DownloadValidatorStore(reactContext);
+    }
+    return downloadValidatorStore;
+  }
+
+  /**
+   * Creates a pending MediaStore entry for the download and hands its descriptor to the Downloader, so
+   * the body lands directly in the shared collection instead of being copied there afterwards.
+   */
+  private Uri openMediaStoreDestination(ReadableMap mediaStore, DownloadParams params, ContentResolver resolver) throws IOException {
+    FileDescription fileDesc = new FileDescription(
+      mediaStore.getString("name"),
+      mediaStore.getString("mimeType"),
+      // Appended to the collection's relative path, so a missing folder must not become "null".
+      mediaStore.hasKey("parentFolder") && !mediaStore.isNull("parentFolder") ? mediaStore.getString("parentFolder") : ""
+    );
+    RNFSMediaStoreManager.MediaType mediaType = RNFSMediaStoreManager.MediaType.valueOf(mediaStore.getString("mediaType"));
+
+    Uri mediaUri = RNFSMediaStoreManager.createPendingMediaFile(resolver, fileDesc, mediaType);
+    try {
+      params.destDescriptor = resolver.openFileDescriptor(mediaUri, "w");
+      if (params.destDescriptor == null) {
+        throw new IOException("Failed to open file descriptor");
+      }
+    } catch (IOException ex) {
+      RNFSMediaStoreManager.cleanupMediaStoreEntry(mediaUri, resolver);
+      throw ex;
+    }
+    return mediaUri;
+  }
+
+  @ReactMethod
+  public void stopDownload(int jobId) {
+    // A job sharing its transfer with others only detaches, the transfer stops once nobody needs it.
+    synchronized (inFlightDownloads) {
+      for (InFlightDownload inFlight : inFlightDownloads.values()) {
+        if (inFlight.detached.contains(jobId)) {
+          // Stopped before, its id may be the one the still needed transfer runs under.
+          return;
+        }
+
+        InFlightDownload.Participant follower = inFlight.removeFollower(jobId);
+        if (follower != null) {
+          reject(follower.promise, follower.dest.getPath(), new Exception("Download has been aborted"));
+          return;
+        }
+
+        if (inFlight.primary.jobId == jobId) {
+          if (!inFlight.followers.isEmpty()) {
+            InFlightDownload.Participant stopped = inFlight.handOver();
+            reject(stopped.promise, stopped.dest.getPath(), new Exception("Download has been aborted"));
+            return;
+          }
+          // The last job waiting on the transfer, stop the Downloader it runs under.
+          jobId = inFlight.transferJobId;
+          break;
+        }
+      }
+    }
+
+    Downloader downloader = this.downloadJobs.get(jobId);
+
+    if (downloader != null) {
+      downloader.stop();
+    }
+  }
+
+  /**
+   * Warms up the connection to a download host. HttpURLConnection only pools a connection once a
+   * response has been fully consumed, so a HEAD request is made and its (empty) body drained without
+   * calling disconnect(), which leaves the resolved, connected and handshaken socket idle in the pool
+   * for the next downloadFile to that host.
+   */
+  @ReactMethod
+  public void preconnect(final String urlString, final ReadableMap options, final Promise promise) {
+    new Thread(new Runnable() {
+      public void run() {
+        try {
+          URL url = new URL(urlString);
+          WritableMap result = Arguments.createMap();
+
+          long phaseStart = SystemClock.elapsedRealtime();
+          InetAddress.getAllByName(url.getHost());
+          result.putDouble("dnsMillis", (double) (SystemClock.elapsedRealtime() - phaseStart));
+
+          HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+          connection.setRequestMethod("HEAD");
+          connection.setConnectTimeout(options.hasKey("connectionTimeout") ? options.getInt("connectionTimeout") : 5000);
+          connection.setReadTimeout(options.hasKey("readTimeout") ? options.getInt("readTimeout") : 15000);
+
+          phaseStart = SystemClock.elapsedRealtime();
+          connection.connect();
+          result.putDouble("connectMillis", (double) (SystemClock.elapsedRealtime() - phaseStart));
+
+          int statusCode = connection.getResponseCode();
+          InputStream body = statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+          if (body != null) {
+            try (InputStream in = body) {
+              byte[] buffer = new byte[1024];
+              while (in.read(buffer) != -1) {
+                // Drain so the connection is released to the pool.
+              }
+            }
+          }
+
+          result.putInt("statusCode", statusCode);
+          promise.resolve(result);
+        } catch (Exception ex) {
+          ex.printStackTrace();
+          reject(promise, urlString, ex);
+        }
+      }
+    }).start();
+  }
+
+  @ReactMethod
+  public void setDownloadBandwidthBudget(double bytesPerSecond) {
+    downloadBandwidthBudget.setRate((long) bytesPerSecond);
+  }
+
+  /**
+   * Gives a running job its own limit, replacing the shared budget for it. A limit of 0 or less removes
+   * any throttling from the job.
+   */
+  @ReactMethod
+  public void setDownloadRateLimit(int jobId, double bytesPerSecond) {
+    // A transfer runs under its first job's id. Only a job that has it to itself may limit it, the limit
+    // would otherwise slow down every other job waiting on the same transfer.
+    synchronized (inFlightDownloads) {
+      for (InFlightDownload inFlight : inFlightDownloads.values()) {
+        if (inFlight.detached.contains(jobId)) {
+          return;
+        }
+        if (inFlight.getParticipant(jobId) != null) {
+          if (!inFlight.followers.isEmpty()) {
+            Log.w("RNFS2", "Ignoring rate limit of download " + jobId + ", its transfer is shared with other jobs");
+            return;
+          }
+          inFlight.rateLimited = true;
+          jobId = inFlight.transferJobId;
+          break;
+        }
+      }
+    }
+
+    Downloader downloader = downloadJobs.get(jobId);
+    if (downloader == null || downloader.getParams() == null) {
+      return;
+    }
+
+    DownloadParams params = downloader.getParams();
+    BandwidthLimiter limiter = params.bandwidthLimiter;
+    if (bytesPerSecond <= 0) {
+      params.bandwidthLimiter = null;
+    } else if (limiter != null && limiter != downloadBandwidthBudget) {
+      limiter.setRate((long) bytesPerSecond);
+    } else {
+      params.bandwidthLimiter = new BandwidthLimiter((long) bytesPerSecond);
+    }
+  }
+
+  @ReactMethod
+  public void getDownloadStats(Promise promise) {
+    DownloadJobRegistry.Stats stats = downloadJobs.getStats();
+    WritableMap statsMap = Arguments.createMap();
+
+    statsMap.putInt("activeJobs", stats.activeJobs);
+    statsMap.putInt("completedJobs", stats.completedJobs);
+    statsMap.putInt("failedJobs", stats.failedJobs);
+    statsMap.putDouble("totalBytes", (double) stats.totalBytes);
+    statsMap.putDouble("totalTransferMillis", (double) stats.totalTransferMillis);
+    statsMap.putDouble("averageQueueWaitMillis", stats.averageQueueWaitMillis);
+    statsMap.putDouble("averageDnsMillis", stats.averageDnsMillis);
+    statsMap.putDouble("averageConnectMillis", stats.averageConnectMillis);
+    statsMap.putDouble("averageFirstByteMillis", stats.averageFirstByteMillis);
+    statsMap.putDouble("averageThroughput", stats.averageThroughput);
+
+    promise.resolve(statsMap);
+  }
+
+  @ReactMethod
+  public void uploadFiles(final ReadableMap options, final Promise promise) {
+    try {
+      ReadableArray files = options.getArray("files");
+      URL url = new URL(options.getString("toUrl"));
+      final int jobId = options.getInt("jobId");
+      boolean binaryStreamOnly = options.getBoolean("binaryStreamOnly");
+
+      if (files.size() == 0 || (binaryStreamOnly && files.size() != 1)) {
+        throw new IllegalArgumentException(binaryStreamOnly
+          ? "binaryStreamOnly uploads take exactly one file"
+          : "No files to upload");
+      }
+
+      List<UploadParams.FileItem> fileItems = new ArrayList<>();
+      for (int i = 0; i < files.size(); i++) {
+        ReadableMap file = files.getMap(i);
+        String filepath = file.getString("filepath");
+
+        UploadParams.FileItem item = new UploadParams.FileItem();
+        item.name = file.getString("name");
+        item.filename = file.getString("filename");
+        item.filetype = file.hasKey("filetype") ? file.getString("filetype") : null;
+        item.uri = getFileUri(filepath, false);
+        item.size = getUploadFileSize(item.uri, filepath);
+        fileItems.add(item);
+      }
+
+      UploadParams params = new UploadParams();
+
+      params.url = url;
+      params.files = fileItems;
+      params.method = options.getString("method");
+      params.headers = options.getMap("headers");
+      params.fields = options.getMap("fields");
+      params.binaryStreamOnly = binaryStreamOnly;
+      params.chunked = options.getBoolean("chunked");
+      params.progressInterval = options.getInt("progressInterval");
+      params.readTimeout = options.getInt("readTimeout");
+      params.connectionTimeout = options.getInt("connectionTimeout");
+      params.contentResolver = reactContext.getContentResolver();
+
+      params.onTaskCompleted = new UploadParams.OnTaskCompleted() {
+        public void onTaskCompleted(UploadResult res) {
+          uploaders.remove(jobId);
+
+          if (res.exception == null) {
+            WritableMap headersMap = Arguments.createMap();
+
+            for (Map.Entry<String, String> entry : res.headers.entrySet()) {
+              headersMap.putString(entry.getKey(), entry.getValue());
+            }
+
+            WritableMap infoMap = Arguments.createMap();
+
+            infoMap.putInt("jobId", jobId);
+            infoMap.putInt("statusCode", res.statusCode);
+            infoMap.putMap("headers", headersMap);
+            infoMap.putString("body", res.body);
+            infoMap.putDouble("bytesSent", (double) res.bytesSent);
+
+            promise.resolve(infoMap);
+          } else {
+            reject(promise, options.getString("toUrl"), res.exception);
+          }
+        }
+      };
+
+      if (options.getBoolean("hasBeginCallback")) {
+        params.onUploadBegin = new UploadParams.OnUploadBegin() {
+          public void onUploadBegin() {
+            WritableMap data = Arguments.createMap();
+
+            data.putInt("jobId", jobId);
+
+            sendEvent(getReactApplicationContext(), "UploadBegin", data);
+          }
+        };
+      }
+
+      if (options.getBoolean("hasProgressCallback")) {
+        params.onUploadProgress = new UploadParams.OnUploadProgress() {
+          public void onUploadProgress(long totalBytesExpectedToSend, long totalBytesSent) {
+            WritableMap data = Arguments.createMap();
+
+            data.putInt("jobId", jobId);
+            data.putDouble("totalBytesExpectedToSend", (double) totalBytesExpectedToSend);
+            data.putDouble("totalBytesSent", (double) totalBytesSent);
+
+            sendEvent(getReactApplicationContext(), "UploadProgress", data);
+          }
+        };
+      }
+
+      Uploader uploader = new Uploader();
+
+      this.uploaders.put(jobId, uploader);
+
+      uploader.execute(params);
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, options.getString("toUrl"), ex);
+    }
+  }
+
+  /**
+   * @return the size of an upload source, or -1 when the provider does not report one
+   */
+  private long getUploadFileSize(Uri uri, String filepath) throws IOException, IORejectionException {
+    if ("file".equals(uri.getScheme())) {
+      File file = new File(uri.getPath());
+      if (!file.exists()) {
+        throw new IORejectionException("ENOENT", "ENOENT: no such file or directory, open '" + filepath + "'");
+      }
+      return file.length();
+    }
+
+    try (AssetFileDescriptor afd = reactContext.getContentResolver().openAssetFileDescriptor(uri, "r")) {
+      return afd != null ? afd.getLength() : -1;
+    }
+  }
+
+  @ReactMethod
+  public void stopUpload(int jobId) {
+    Uploader uploader = this.uploaders.get(jobId);
+
+    if (uploader != null) {
+      uploader.stop();
+    }
+  }
+
+  @ReactMethod
+  public void pathForBundle(String bundleNamed, Promise promise) {
+    // TODO: Not sure what equivalent would be?
+  }
+
+  @ReactMethod
+  public void pathForGroup(String bundleNamed, Promise promise) {
+    // TODO: Not sure what equivalent would be?
+  }
+
+  @ReactMethod
+  public void getFSInfo(Promise promise) {
+    File path = Environment.getDataDirectory();
+    StatFs stat = new StatFs(path.getPath());
+    StatFs statEx = new StatFs(Environment.getExternalStorageDirectory().getPath());
+    long totalSpace = stat.getTotalBytes();
+    long freeSpace = stat.getFreeBytes();
+    long totalSpaceEx = statEx.getTotalBytes();
+    long freeSpaceEx = statEx.getFreeBytes();
+
+    WritableMap info = Arguments.createMap();
+    info.putDouble("totalSpace", (double) totalSpace);   // Int32 too small, must use Double
+    info.putDouble("freeSpace", (double) freeSpace);
+    info.putDouble("totalSpaceEx", (double) totalSpaceEx);
+    info.putDouble("freeSpaceEx", (double) freeSpaceEx);
+    promise.resolve(info);
+  }
+
+  @ReactMethod
+  public void touch(String filepath, double mtime, double ctime, Promise promise) {
+    try {
+      File file = new File(filepath);
+      promise.resolve(file.setLastModified((long) mtime));
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, filepath, ex);
+    }
+  }
+
+  @ReactMethod
+  public void getAllExternalFilesDirs(Promise promise){
+    File[] allExternalFilesDirs = this.getReactApplicationContext().getExternalFilesDirs(null);
+    WritableArray fs = Arguments.createArray();
+    for (File f : allExternalFilesDirs) {
+      if (f != null) {
+        fs.pushString(f.getAbsolutePath());
+      }
+    }
+    promise.resolve(fs);
+  }
+
+  @ReactMethod
   public void scanFile(String path, final Promise promise) {
     MediaScannerConnection.scanFile(this.getReactApplicationContext(),
       new String[]{path},
@@ -664,6 +1613,445 @@ public class RNFSManager extends ReactContextBaseJavaModule {
     );
   }
 
+  /**
+   * Scans every path through a single scanner connection and resolves once with all results. Paths
+   * the scanner never reports back (ie unsupported files) resolve with a null uri after the timeout.
+   */
+  @ReactMethod
+  public void scanFiles(ReadableArray paths, ReadableArray mimeTypes, ReadableMap options, final Promise promise) {
+    final int jobId = options.hasKey("jobId") ? options.getInt("jobId") : -1;
+    final boolean hasProgressCallback = options.hasKey("hasProgressCallback") && options.getBoolean("hasProgressCallback");
+    long timeout = options.hasKey("timeout") ? options.getInt("timeout") : DEFAULT_SCAN_TIMEOUT;
+
+    final String[] pathArray = new String[paths.size()];
+    for (int i = 0; i < pathArray.length; i++) {
+      pathArray[i] = paths.getString(i);
+    }
+
+    String[] mimeTypeArray = null;
+    if (mimeTypes != null && mimeTypes.size() > 0) {
+      if (mimeTypes.size() != pathArray.length) {
+        promise.reject("EINVAL", "mimeTypes must have one entry per path");
+        return;
+      }
+      mimeTypeArray = new String[mimeTypes.size()];
+      for (int i = 0; i < mimeTypeArray.length; i++) {
+        mimeTypeArray[i] = mimeTypes.isNull(i) ? null : mimeTypes.getString(i);
+      }
+    }
+
+    if (pathArray.length == 0) {
+      promise.resolve(Arguments.createArray());
+      return;
+    }
+
+    // Completion counts distinct paths, a repeated path is scanned once (with its first mime type).
+    LinkedHashMap<String, String> uniquePaths = new LinkedHashMap<>();
+    for (int i = 0; i < pathArray.length; i++) {
+      if (!uniquePaths.containsKey(pathArray[i])) {
+        uniquePaths.put(pathArray[i], mimeTypeArray != null ? mimeTypeArray[i] : null);
+      }
+    }
+    final String[] scanPaths = uniquePaths.keySet().toArray(new String[0]);
+    String[] scanMimeTypes = mimeTypeArray != null ? uniquePaths.values().toArray(new String[0]) : null;
+
+    // The scanner reports each path once, in any order. Both are guarded by results.
+    final Map<String, String> results = new HashMap<>();
+    final boolean[] settled = {false};
+    final Handler handler = new Handler(Looper.getMainLooper());
+    final Runnable settle = new Runnable() {
+      @Override
+      public void run() {
+        WritableArray scanned = Arguments.createArray();
+        synchronized (results) {
+          if (settled[0]) return;
+          settled[0] = true;
+
+          for (String path : pathArray) {
+            WritableMap result = Arguments.createMap();
+            result.putString("path", path);
+            result.putString("uri", results.get(path));
+            scanned.pushMap(result);
+          }
+        }
+        promise.resolve(scanned);
+      }
+    };
+    handler.postDelayed(settle, timeout);
+
+    MediaScannerConnection.scanFile(this.getReactApplicationContext(),
+      scanPaths,
+      scanMimeTypes,
+      new MediaScannerConnection.OnScanCompletedListener() {
+        @Override
+        public void onScanCompleted(String path, Uri uri) {
+          int completed;
+          synchronized (results) {
+            if (settled[0]) return;
+            results.put(path, uri != null ? uri.toString() : null);
+            completed = results.size();
+          }
+
+          if (hasProgressCallback) {
+            WritableMap data = Arguments.createMap();
+            data.putInt("jobId", jobId);
+            data.putString("path", path);
+            data.putString("uri", uri != null ? uri.toString() : null);
+            data.putInt("completed", completed);
+            data.putInt("total", scanPaths.length);
+            sendEvent(getReactApplicationContext(), "ScanProgress", data);
+          }
+
+          if (completed >= scanPaths.length) {
+            handler.removeCallbacks(settle);
+            settle.run();
+          }
+        }
+      }
+    );
+  }
+
+  @ReactMethod
+  public void watch(int watchId, String path, ReadableMap options, Promise promise) {
+    File root = new File(path);
+    if (!root.isDirectory()) {
+      promise.reject("ENOTDIR", "ENOTDIR: not a directory, watch '" + path + "'");
+      return;
+    }
+
+    try {
+      boolean recursive = options.hasKey("recursive") && options.getBoolean("recursive");
+      long window = options.hasKey("window") ? options.getInt("window") : DEFAULT_WATCH_WINDOW;
+      int maxDirectories = options.hasKey("maxDirectories") ? options.getInt("maxDirectories") : DEFAULT_WATCH_MAX_DIRECTORIES;
+
+      int mask = 0;
+      if (options.hasKey("events")) {
+        ReadableArray events = options.getArray("events");
+        for (int i = 0; i < events.size(); i++) {
+          mask |= FileWatcher.getMask(events.getString(i));
+        }
+      } else {
+        mask = FileWatcher.EVENT_CREATE | FileWatcher.EVENT_MODIFY | FileWatcher.EVENT_DELETE;
+      }
+
+      FileWatcher watcher = new FileWatcher(watchId, root, recursive, mask, window, maxDirectories, getFileWatcherHandler(), new FileWatcher.OnChangeListener() {
+        @Override
+        public void onChange(FileWatcher watcher, WritableMap event) {
+          sendEvent(getReactApplicationContext(), "FileWatchEvent", event);
+        }
+      });
+
+      FileWatcher previous = fileWatchers.put(watchId, watcher);
+      if (previous != null) {
+        previous.stop();
+      }
+      watcher.start();
+
+      WritableMap result = Arguments.createMap();
+      result.putInt("directories", watcher.getDirectoryCount());
+      promise.resolve(result);
+    } catch (IllegalArgumentException ex) {
+      promise.reject("EINVAL", "EINVAL: " + ex.getMessage());
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, path, ex);
+    }
+  }
+
+  @ReactMethod
+  public void unwatch(int watchId) {
+    FileWatcher watcher = fileWatchers.remove(watchId);
+    if (watcher != null) {
+      watcher.stop();
+    }
+  }
+
+  private synchronized Handler getFileWatcherHandler() {
+    if (fileWatcherThread == null) {
+      fileWatcherThread = new HandlerThread("RNFS2FileWatcher");
+      fileWatcherThread.start();
+      fileWatcherHandler = new Handler(fileWatcherThread.getLooper());
+    }
+    return fileWatcherHandler;
+  }
+
+  @ReactMethod
+  public void registerCacheRegion(String name, ReadableMap options, Promise promise) {
+    try {
+      long maxBytes = options.hasKey("maxBytes") ? (long) options.getDouble("maxBytes") : 0;
+      int maxEntries = options.hasKey("maxEntries") ? options.getInt("maxEntries") : 0;
+      CacheManager.Region region = getCacheManager().register(name, maxBytes, maxEntries);
+      promise.resolve(getCacheStatsMap(region));
+    } catch (IllegalArgumentException ex) {
+      promise.reject("EINVAL", "EINVAL: " + ex.getMessage());
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, name, ex);
+    }
+  }
+
+  @ReactMethod
+  public void cacheGet(String region, String key, Promise promise) {
+    try {
+      promise.resolve(getCacheManager().get(region, key));
+    } catch (IllegalArgumentException ex) {
+      promise.reject("EINVAL", "EINVAL: " + ex.getMessage());
+    }
+  }
+
+  @ReactMethod
+  public void cachePut(String region, String key, String filepath, ReadableMap options, Promise promise) {
+    try {
+      File source = new File(filepath);
+      if (!source.isFile()) {
+        rejectFileNotFound(promise, filepath);
+        return;
+      }
+
+      boolean move = options.hasKey("move") && options.getBoolean("move");
+      promise.resolve(getCacheManager().put(region, key, source, move));
+    } catch (IllegalArgumentException ex) {
+      promise.reject("EINVAL", "EINVAL: " + ex.getMessage());
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, filepath, ex);
+    }
+  }
+
+  @ReactMethod
+  public void cacheRemove(String region, String key, Promise promise) {
+    try {
+      promise.resolve(getCacheManager().remove(region, key));
+    } catch (IllegalArgumentException ex) {
+      promise.reject("EINVAL", "EINVAL: " + ex.getMessage());
+    }
+  }
+
+  @ReactMethod
+  public void cacheClear(String region, Promise promise) {
+    try {
+      getCacheManager().clear(region);
+      promise.resolve(null);
+    } catch (IllegalArgumentException ex) {
+      promise.reject("EINVAL", "EINVAL: " + ex.getMessage());
+    }
+  }
+
+  @ReactMethod
+  public void getCacheStats(String region, Promise promise) {
+    try {
+      promise.resolve(getCacheStatsMap(getCacheManager().getRegion(region)));
+    } catch (IllegalArgumentException ex) {
+      promise.reject("EINVAL", "EINVAL: " + ex.getMessage());
+    }
+  }
+
+  private WritableMap getCacheStatsMap(CacheManager.Region region) {
+    WritableMap stats = Arguments.createMap();
+    synchronized (getCacheManager()) {
+      stats.putString("path", region.directory.getAbsolutePath());
+      stats.putDouble("bytes", region.totalBytes);
+      stats.putInt("entries", region.entries.size());
+      stats.putDouble("maxBytes", region.maxBytes);
+      stats.putInt("maxEntries", region.maxEntries);
+    }
+    return stats;
+  }
+
+  private synchronized CacheManager getCacheManager() {
+    if (cacheManager == null) {
+      cacheManager = new CacheManager(reactContext);
+      reactContext.getApplicationContext().registerComponentCallbacks(cacheManager);
+    }
+    return cacheManager;
+  }
+
+  @ReactMethod
+  public void storeByHash(String filepath, Promise promise) {
+    try {
+      File source = new File(filepath);
+      if (!source.isFile()) {
+        rejectFileNotFound(promise, filepath);
+        return;
+      }
+
+      ContentStore.StoreResult result = getContentStore().store(source);
+      WritableMap map = Arguments.createMap();
+      map.putString("hash", result.hash);
+      map.putDouble("size", result.size);
+      map.putBoolean("deduplicated", result.deduplicated);
+      promise.resolve(map);
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, filepath, ex);
+    }
+  }
+
+  @ReactMethod
+  public void materialize(String hash, String destPath, ReadableMap options, Promise promise) {
+    try {
+      boolean copy = options.hasKey("copy") && options.getBoolean("copy");
+      boolean linked = getContentStore().materialize(hash, new File(destPath), copy);
+
+      WritableMap map = Arguments.createMap();
+      map.putString("path", destPath);
+      map.putBoolean("linked", linked);
+      promise.resolve(map);
+    } catch (IllegalArgumentException ex) {
+      promise.reject("EINVAL", "EINVAL: " + ex.getMessage());
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      reject(promise, destPath, ex);
+    }
+  }
+
+  @ReactMethod
+  public void gcStore(Promise promise) {
+    try {
+      ContentStore.GcResult result = getContentStore().gc();
+      WritableMap map = Arguments.createMap();
+      map.putInt("removedBlobs", result.removedBlobs);
+      map.putInt("removedReferences", result.removedReferences);
+      map.putDouble("freedBytes", result.freedBytes);
+      promise.resolve(map);
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      promise.reject("EUNSPECIFIED", ex.getMessage());
+    }
+  }
+
+  @ReactMethod
+  public void getStoreStats(Promise promise) {
+    ContentStore store = getContentStore();
+    WritableMap stats = Arguments.createMap();
+    synchronized (store) {
+      long bytes = 0;
+      long savedBytes = 0;
+      int references = 0;
+      for (ContentStore.Blob blob : store.getBlobs().values()) {
+        bytes += blob.size;
+        references += blob.references.size();
+        for (boolean linked : blob.references.values()) {
+          if (linked) savedBytes += blob.size;
+        }
+      }
+      stats.putInt("blobs", store.getBlobs().size());
+      stats.putInt("references", references);
+      stats.putDouble("bytes", bytes);
+      stats.putDouble("savedBytes", savedBytes);
+    }
+    promise.resolve(stats);
+  }
+
+  private synchronized ContentStore getContentStore() {
+    if (contentStore == null) {
+      contentStore = new ContentStore(reactContext);
+    }
+    return contentStore;
+  }
+
+  @ReactMethod
+  public void unzip(final String zipPath, final String destDir, ReadableMap options, final Promise promise) {
+    final int concurrency = options.hasKey("concurrency") ? options.getInt("concurrency") : Math.min(DEFAULT_UNZIP_CONCURRENCY, Runtime.getRuntime().availableProcessors());
+    final boolean overwrite = !options.hasKey("overwrite") || options.getBoolean("overwrite");
+    final ZipArchiver archiver = createZipArchiver(options);
+
+    if (concurrency < 1) {
+      promise.reject("EINVAL", "EINVAL: concurrency must be at least 1");
+      return;
+    }
+    if (!new File(zipPath).isFile()) {
+      rejectFileNotFound(promise, zipPath);
+      return;
+    }
+
+    runZipJob(archiver, zipPath, promise, new Callable<ZipArchiver.Result>() {
+      @Override
+      public ZipArchiver.Result call() throws IOException {
+        File dest = new File(destDir);
+        if (!dest.isDirectory() && !dest.mkdirs()) {
+          throw new IOException("Could not create directory: " + destDir);
+        }
+        return archiver.unzip(new File(zipPath), dest, concurrency, overwrite);
+      }
+    });
+  }
+
+  @ReactMethod
+  public void zip(final String sourceDir, final String zipPath, ReadableMap options, final Promise promise) {
+    final int level = options.hasKey("level") ? options.getInt("level") : Deflater.DEFAULT_COMPRESSION;
+    final ZipArchiver archiver = createZipArchiver(options);
+
+    if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      promise.reject("EINVAL", "EINVAL: level must be between -1 and 9");
+      return;
+    }
+    if (!new File(sourceDir).isDirectory()) {
+      rejectFileNotFound(promise, sourceDir);
+      return;
+    }
+
+    runZipJob(archiver, sourceDir, promise, new Callable<ZipArchiver.Result>() {
+      @Override
+      public ZipArchiver.Result call() throws IOException {
+        return archiver.zip(new File(sourceDir), new File(zipPath), level);
+      }
+    });
+  }
+
+  @ReactMethod
+  public void stopZip(int jobId) {
+    ZipArchiver archiver = zipJobs.get(jobId);
+    if (archiver != null) {
+      archiver.cancel();
+    }
+  }
+
+  private ZipArchiver createZipArchiver(ReadableMap options) {
+    final int jobId = options.hasKey("jobId") ? options.getInt("jobId") : -1;
+    boolean hasProgressCallback = options.hasKey("hasProgressCallback") && options.getBoolean("hasProgressCallback");
+    long progressInterval = options.hasKey("progressInterval") ? options.getInt("progressInterval") : DEFAULT_ZIP_PROGRESS_INTERVAL;
+
+    ZipArchiver.ProgressListener listener = null;
+    if (hasProgressCallback) {
+      listener = new ZipArchiver.ProgressListener() {
+        @Override
+        public void onProgress(long bytesWritten, long totalBytes, int entriesWritten, int totalEntries) {
+          WritableMap data = Arguments.createMap();
+          data.putInt("jobId", jobId);
+          data.putDouble("bytesWritten", (double) bytesWritten);
+          data.putDouble("totalBytes", (double) totalBytes);
+          data.putInt("entriesWritten", entriesWritten);
+          data.putInt("totalEntries", totalEntries);
+          sendEvent(reactContext, "ZipProgress", data);
+        }
+      };
+    }
+    return new ZipArchiver(jobId, progressInterval, listener);
+  }
+
+  private void runZipJob(final ZipArchiver archiver, final String filepath, final Promise promise, final Callable<ZipArchiver.Result> job) {
+    zipJobs.put(archiver.jobId, archiver);
+    new Thread(new Runnable() {
+      public void run() {
+        try {
+          ZipArchiver.Result result = job.call();
+          WritableMap map = Arguments.createMap();
+          map.putInt("jobId", archiver.jobId);
+          map.putInt("entries", result.entries);
+          map.putInt("skipped", result.skipped);
+          map.putDouble("bytesWritten", (double) result.bytesWritten);
+          promise.resolve(map);
+        } catch (Exception ex) {
+          ex.printStackTrace();
+          reject(promise, filepath, ex);
+        } finally {
+          zipJobs.remove(archiver.jobId);
+        }
+      }
+    }).start();
+  }
+
   // Required for rn built in EventEmitter Calls.
   @ReactMethod
   public void addListener(String eventName) {
@@ -1,6 +1,8 @@
 package com.rnfs2;
 
 import android.app.RecoverableSecurityException;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
@@ -8,9 +10,11 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.ParcelFileDescriptor;
 import android.provider.MediaStore;
-import android.os.FileUtils;
+import android.util.Base64;
 import android.util.Log;
 
 import com.facebook.react.bridge.Arguments;
@@ -18,27 +22,60 @@ import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
+import com.facebook.react.modules.core.RCTNativeAppEventEmitter;
 
 import com.rnfs2.Utils.FileDescription;
 import com.rnfs2.Utils.MediaStoreQuery;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @ReactModule(name = RNFSMediaStoreManager.MODULE_NAME)
 public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
 
   static final String MODULE_NAME = "RNFSMediaStoreManager";
   private final ReactApplicationContext reactContext;
+  private final MediaStoreIndex mediaStoreIndex;
+  private final Map<Integer, MediaStoreWatcher> watchers = new ConcurrentHashMap<>();
+  private final ThumbnailCache thumbnailCache;
+  private final Map<Integer, MediaWriter> mediaWriters = new ConcurrentHashMap<>();
+  private final AtomicInteger nextMediaWriterId = new AtomicInteger();
+  // Decoding is kept off the bridge thread, two at a time so a scrolling grid does not exhaust memory.
+  private final ExecutorService thumbnailExecutor = Executors.newFixedThreadPool(2);
+  private HandlerThread watcherThread;
+  private Handler watcherHandler;
+  private static final int DEFAULT_BATCH_CONCURRENCY = 4;
+  private static final int DEFAULT_PROGRESS_INTERVAL = 250;
+  private static final int DEFAULT_LIST_LIMIT = 100;
+  private static final int DEFAULT_WATCH_DEBOUNCE = 500;
+  private static final int DEFAULT_THUMBNAIL_SIZE = 256;
+  private static final int DEFAULT_THUMBNAIL_QUALITY = 80;
+  private static final int DEFAULT_WATCH_MAX_WAIT = 5000;
+  // transferTo is issued in slices so large videos still report progress.
+  private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+  private static final int STREAM_BUFFER_SIZE = 64 * 1024;
 
   public enum MediaType {
     Audio,
@@ -55,6 +92,31 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
   public RNFSMediaStoreManager(ReactApplicationContext reactContext) {
     super(reactContext);
     this.reactContext = reactContext;
+    this.mediaStoreIndex = new MediaStoreIndex(reactContext.getContentResolver());
+    this.thumbnailCache = new ThumbnailCache(reactContext);
+  }
+
+  @Override
+  public void invalidate() {
+    mediaStoreIndex.close();
+    for (MediaWriter writer : mediaWriters.values()) {
+      writer.abort();
+      cleanupMediaStoreEntry(writer.fileUri, reactContext.getContentResolver());
+    }
+    mediaWriters.clear();
+    thumbnailExecutor.shutdown();
+    for (MediaStoreWatcher watcher : watchers.values()) {
+      watcher.stop();
+    }
+    watchers.clear();
+    synchronized (this) {
+      if (watcherThread != null) {
+        watcherThread.quitSafely();
+        watcherThread = null;
+        watcherHandler = null;
+      }
+    }
+    super.invalidate();
   }
 
   @Override
@@ -157,15 +219,17 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
   }
 
   @ReactMethod
-  public void writeToMediaFile(String fileUri, String path, boolean transformFile, Promise promise) {
-    boolean res = writeToMediaFile(Uri.parse(fileUri), path, transformFile, false, promise, reactContext);
-    if (res) {
-      promise.resolve("Success");
+  public void writeToMediaFile(String fileUri, String path, boolean transformFile, ReadableMap options, Promise promise) {
+    long bytesWritten = writeToMediaFile(Uri.parse(fileUri), path, transformFile, false, getProgressListener(options), promise, reactContext);
+    if (bytesWritten >= 0) {
+      WritableMap result = Arguments.createMap();
+      result.putDouble("bytesWritten", bytesWritten);
+      promise.resolve(result);
     }
   }
 
   @ReactMethod
-  public void copyToMediaStore(ReadableMap filedata, String mediaType, String path, Promise promise) {
+  public void copyToMediaStore(ReadableMap filedata, String mediaType, String path, ReadableMap options, Promise promise) {
     if (!(filedata.hasKey("name") && filedata.hasKey("parentFolder") && filedata.hasKey("mimeType"))) {
       promise.reject("RNFS2.copyToMediaStore", "Invalid filedata: " + filedata.toString());
       return;
@@ -181,13 +245,6 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
       return;
     }
 
-    try (InputStream testStream = getSourceInputStream(path)) {
-      // source exists and is readable - continue
-    } catch (IOException e) {
-      promise.reject("ENOENT", "Source not accessible: " + path);
-      return;
-    }
-
     ContentResolver resolver = reactContext.getContentResolver();
     Uri fileUri = null;
 
@@ -211,9 +268,9 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
         return;
       }
 
-      boolean writeSuccessful = writeToMediaFile(fileUri, path, false, true, promise, reactContext);
+      long bytesWritten = writeToMediaFile(fileUri, path, false, true, getProgressListener(options), promise, reactContext);
 
-      if (writeSuccessful) {
+      if (bytesWritten >= 0) {
         ContentValues commitValues = new ContentValues();
         commitValues.put(MediaStore.MediaColumns.IS_PENDING, 0);
         if (resolver.update(fileUri, commitValues, null, null) > 0) {
@@ -223,7 +280,7 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
           promise.reject("RNFS2.copyToMediaStore", "Failed to commit media file (unmark as pending - 0 rows updated). Entry with data cleaned up.");
         }
       }
-      // If writeSuccessful is false, writeToMediaFile has already rejected and handled cleanup.
+      // If bytesWritten is negative, writeToMediaFile has already rejected and handled cleanup.
     } catch (Exception e) {
       if (fileUri != null) {
         cleanupMediaStoreEntry(fileUri, resolver);
@@ -243,6 +300,227 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
     }
   }
 
+  @ReactMethod
+  public void openMediaWriter(ReadableMap filedata, String mediaType, ReadableMap options, Promise promise) {
+    if (!(filedata.hasKey("name") && filedata.hasKey("parentFolder") && filedata.hasKey("mimeType"))) {
+      promise.reject("RNFS2.openMediaWriter", "Invalid filedata: " + filedata.toString());
+      return;
+    }
+
+    ContentResolver resolver = reactContext.getContentResolver();
+    Uri fileUri = null;
+    try {
+      FileDescription fileDesc = new FileDescription(filedata.getString("name"), filedata.getString("mimeType"), filedata.getString("parentFolder"));
+      fileUri = createPendingMediaFile(resolver, fileDesc, MediaType.valueOf(mediaType));
+
+      ParcelFileDescriptor descr = resolver.openFileDescriptor(fileUri, "w");
+      if (descr == null) {
+        throw new IOException("Failed to open file descriptor");
+      }
+
+      boolean transform = options.hasKey("transformFile") && options.getBoolean("transformFile");
+      int writerId = nextMediaWriterId.incrementAndGet();
+      mediaWriters.put(writerId, new MediaWriter(writerId, fileUri, descr, transform ? RNFSFileTransformer.getWriteTransformer() : null));
+
+      WritableMap result = Arguments.createMap();
+      result.putInt("writerId", writerId);
+      result.putString("uri", fileUri.toString());
+      promise.resolve(result);
+    } catch (Exception e) {
+      if (fileUri != null) {
+        cleanupMediaStoreEntry(fileUri, resolver);
+      }
+      promise.reject("RNFS2.openMediaWriter", "Failed to open media writer: " + e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void writeChunk(int writerId, String base64Content, Promise promise) {
+    MediaWriter writer = mediaWriters.get(writerId);
+    if (writer == null) {
+      promise.reject("RNFS2.writeChunk", "Unknown media writer: " + writerId);
+      return;
+    }
+
+    try {
+      promise.resolve((double) writer.write(Base64.decode(base64Content, Base64.DEFAULT)));
+    } catch (Exception e) {
+      // A failed write leaves the entry incomplete, drop it rather than committing a corrupt file.
+      mediaWriters.remove(writerId);
+      writer.abort();
+      cleanupMediaStoreEntry(writer.fileUri, reactContext.getContentResolver());
+      promise.reject("RNFS2.writeChunk", "Failed to write chunk: " + e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void commitMediaWriter(int writerId, Promise promise) {
+    MediaWriter writer = mediaWriters.remove(writerId);
+    if (writer == null) {
+      promise.reject("RNFS2.commitMediaWriter", "Unknown media writer: " + writerId);
+      return;
+    }
+
+    ContentResolver resolver = reactContext.getContentResolver();
+    try {
+      long bytesWritten = writer.finish();
+      if (!commitPendingMediaFile(resolver, writer.fileUri)) {
+        throw new IOException("unmark as pending - 0 rows updated");
+      }
+
+      WritableMap result = Arguments.createMap();
+      result.putString("uri", writer.fileUri.toString());
+      result.putDouble("bytesWritten", bytesWritten);
+      promise.resolve(result);
+    } catch (Exception e) {
+      cleanupMediaStoreEntry(writer.fileUri, resolver);
+      promise.reject("RNFS2.commitMediaWriter", "Failed to commit media file: " + e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void abortMediaWriter(int writerId, Promise promise) {
+    MediaWriter writer = mediaWriters.remove(writerId);
+    if (writer != null) {
+      writer.abort();
+      cleanupMediaStoreEntry(writer.fileUri, reactContext.getContentResolver());
+    }
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void list(ReadableMap options, Promise promise) {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+      promise.reject("RNFS2.list", "Android version not supported");
+      return;
+    }
+
+    try {
+      MediaType mediaType = MediaType.valueOf(options.getString("mediaType"));
+
+      String relativePath = null;
+      if (options.hasKey("relativePath") && !options.isNull("relativePath")) {
+        relativePath = getRelativePath(mediaType, reactContext) + '/' + options.getString("relativePath") + '/';
+      }
+
+      List<String> mimeTypes = new ArrayList<>();
+      if (options.hasKey("mimeTypes") && !options.isNull("mimeTypes")) {
+        ReadableArray types = options.getArray("mimeTypes");
+        for (int i = 0; i < types.size(); i++) {
+          mimeTypes.add(types.getString(i));
+        }
+      }
+
+      List<String> columns = MediaStoreIndex.DEFAULT_COLUMNS;
+      if (options.hasKey("columns") && !options.isNull("columns")) {
+        ReadableArray requested = options.getArray("columns");
+        columns = new ArrayList<>();
+        for (int i = 0; i < requested.size(); i++) {
+          columns.add(requested.getString(i));
+        }
+      }
+
+      String sortBy = options.hasKey("sortBy") ? options.getString("sortBy") : "dateModified";
+      boolean ascending = options.hasKey("sortOrder") && "asc".equals(options.getString("sortOrder"));
+      int offset = options.hasKey("offset") ? options.getInt("offset") : 0;
+      int limit = options.hasKey("limit") ? options.getInt("limit") : DEFAULT_LIST_LIMIT;
+
+      MediaStoreIndex.Query query = new MediaStoreIndex.Query(getMediaUri(mediaType), relativePath, mimeTypes, sortBy, ascending, columns);
+      promise.resolve(mediaStoreIndex.list(query, offset, limit));
+    } catch (IllegalArgumentException e) {
+      promise.reject("RNFS2.list", "Invalid options: " + e.getMessage());
+    } catch (Exception e) {
+      promise.reject("RNFS2.list", "Failed to list media files: " + e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void watchMediaStore(int watchId, String mediaType, ReadableMap options, Promise promise) {
+    Uri collection;
+    try {
+      collection = getMediaUri(MediaType.valueOf(mediaType));
+    } catch (Exception e) {
+      promise.reject("RNFS2.watchMediaStore", "Invalid mediatype");
+      return;
+    }
+    if (collection == null) {
+      // The Downloads collection only exists from Android 10 on.
+      promise.reject("RNFS2.watchMediaStore", "Android version not supported");
+      return;
+    }
+
+    long debounce = options.hasKey("debounce") ? options.getInt("debounce") : DEFAULT_WATCH_DEBOUNCE;
+    long maxWait = options.hasKey("maxWait") ? options.getInt("maxWait") : DEFAULT_WATCH_MAX_WAIT;
+
+    MediaStoreWatcher watcher = new MediaStoreWatcher(watchId, mediaType, collection, reactContext.getContentResolver(), getWatcherHandler(), debounce, maxWait, new MediaStoreWatcher.OnChangeListener() {
+      @Override
+      public void onChange(MediaStoreWatcher watcher, WritableMap event) {
+        reactContext
+          .getJSModule(RCTNativeAppEventEmitter.class)
+          .emit("MediaStoreChanged", event);
+      }
+    });
+
+    MediaStoreWatcher previous = watchers.put(watchId, watcher);
+    if (previous != null) {
+      previous.stop();
+    }
+    watcher.start();
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void unwatchMediaStore(int watchId) {
+    MediaStoreWatcher watcher = watchers.remove(watchId);
+    if (watcher != null) {
+      watcher.stop();
+    }
+  }
+
+  private synchronized Handler getWatcherHandler() {
+    if (watcherThread == null) {
+      watcherThread = new HandlerThread("RNFS2MediaStoreWatcher");
+      watcherThread.start();
+      watcherHandler = new Handler(watcherThread.getLooper());
+    }
+    return watcherHandler;
+  }
+
+  /**
+   * Sets the size limit of the thumbnail cache, which is shared by every getThumbnail call.
+   */
+  @ReactMethod
+  public void setThumbnailCacheSize(final double maxBytes) {
+    thumbnailExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        thumbnailCache.setMaxBytes((long) maxBytes);
+      }
+    });
+  }
+
+  @ReactMethod
+  public void getThumbnail(final String source, ReadableMap options, final Promise promise) {
+    final int width = options.hasKey("width") ? options.getInt("width") : DEFAULT_THUMBNAIL_SIZE;
+    final int height = options.hasKey("height") ? options.getInt("height") : DEFAULT_THUMBNAIL_SIZE;
+    final int quality = options.hasKey("quality") ? options.getInt("quality") : DEFAULT_THUMBNAIL_QUALITY;
+
+    if (width <= 0 || height <= 0 || quality < 0 || quality > 100) {
+      promise.reject("RNFS2.getThumbnail", "Invalid thumbnail size or quality");
+      return;
+    }
+    thumbnailExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          promise.resolve(thumbnailCache.getThumbnail(source, width, height, quality));
+        } catch (Exception e) {
+          promise.reject("RNFS2.getThumbnail", "Failed to create thumbnail: " + e.getMessage(), e);
+        }
+      }
+    });
+  }
+
   @ReactMethod
   public void delete(String fileUri, Promise promise) {
     try {
@@ -259,6 +537,237 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
     }
   }
 
+  /**
+   * Copies many files into the MediaStore. The pending entries are inserted in one applyBatch, the
+   * payloads are copied in parallel and the entries are committed (or removed when their copy failed)
+   * in a second batch, instead of four provider round trips per file.
+   */
+  @ReactMethod
+  public void copyManyToMediaStore(ReadableArray items, ReadableMap options, Promise promise) {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+      promise.reject("RNFS2.copyManyToMediaStore", "Android version not supported");
+      return;
+    }
+
+    ContentResolver resolver = reactContext.getContentResolver();
+    int count = items.size();
+    final String[] paths = new String[count];
+    final Uri[] fileUris = new Uri[count];
+    final String[] errors = new String[count];
+    final long[] bytesWritten = new long[count];
+
+    ArrayList<ContentProviderOperation> inserts = new ArrayList<>();
+    List<Integer> insertIndexes = new ArrayList<>();
+
+    for (int i = 0; i < count; i++) {
+      try {
+        ReadableMap item = items.getMap(i);
+        ReadableMap filedata = item.getMap("fileDescriptor");
+        paths[i] = item.getString("path");
+
+        if (!(filedata.hasKey("name") && filedata.hasKey("parentFolder") && filedata.hasKey("mimeType"))) {
+          errors[i] = "Invalid filedata: " + filedata.toString();
+          continue;
+        }
+
+        FileDescription fileDesc = new FileDescription(filedata.getString("name"), filedata.getString("mimeType"), filedata.getString("parentFolder"));
+        MediaType mediaType = MediaType.valueOf(item.getString("mediaType"));
+        inserts.add(ContentProviderOperation.newInsert(getMediaUri(mediaType))
+          .withValues(getPendingMediaFileValues(fileDesc, mediaType))
+          .build());
+        insertIndexes.add(i);
+      } catch (Exception e) {
+        errors[i] = "Invalid item: " + e.getMessage();
+      }
+    }
+
+    try {
+      ContentProviderResult[] inserted = resolver.applyBatch(MediaStore.AUTHORITY, inserts);
+      for (int j = 0; j < inserted.length; j++) {
+        fileUris[insertIndexes.get(j)] = inserted[j].uri;
+      }
+    } catch (Exception batchError) {
+      // The batch is aborted as a whole when one insert throws, retry each on its own so only the
+      // offending items fail.
+      for (int j = 0; j < inserts.size(); j++) {
+        int i = insertIndexes.get(j);
+        ArrayList<ContentProviderOperation> single = new ArrayList<>();
+        single.add(inserts.get(j));
+        try {
+          fileUris[i] = resolver.applyBatch(MediaStore.AUTHORITY, single)[0].uri;
+        } catch (Exception e) {
+          errors[i] = "Failed to create media file entry: " + e.getMessage();
+        }
+      }
+    }
+
+    List<Callable<Void>> copies = new ArrayList<>();
+    for (final int i : insertIndexes) {
+      copies.add(new Callable<Void>() {
+        public Void call() {
+          try {
+            if (errors[i] != null) {
+              return null;
+            }
+            if (fileUris[i] == null) {
+              throw new IOException("Failed to create media file entry");
+            }
+            try (MediaSource source = openMediaSource(paths[i])) {
+              bytesWritten[i] = copyToMediaUri(fileUris[i], source, false, null);
+            }
+          } catch (Exception e) {
+            errors[i] = "Failed to write file: " + e.getMessage();
+          }
+          return null;
+        }
+      });
+    }
+
+    int concurrency = options.hasKey("concurrency") ? Math.max(options.getInt("concurrency"), 1) : DEFAULT_BATCH_CONCURRENCY;
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(Math.min(concurrency, copies.size()), 1));
+    try {
+      executor.invokeAll(copies);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdown();
+    }
+
+    ArrayList<ContentProviderOperation> commits = new ArrayList<>();
+    List<Integer> commitIndexes = new ArrayList<>();
+    for (int i : insertIndexes) {
+      if (fileUris[i] == null) continue;
+
+      if (errors[i] == null) {
+        commits.add(ContentProviderOperation.newUpdate(fileUris[i]).withValue(MediaStore.MediaColumns.IS_PENDING, 0).build());
+      } else {
+        commits.add(ContentProviderOperation.newDelete(fileUris[i]).build());
+      }
+      commitIndexes.add(i);
+    }
+
+    try {
+      ContentProviderResult[] committed = resolver.applyBatch(MediaStore.AUTHORITY, commits);
+      for (int j = 0; j < committed.length; j++) {
+        int i = commitIndexes.get(j);
+        if (errors[i] == null && (committed[j].count == null || committed[j].count == 0)) {
+          errors[i] = "Failed to commit media file (unmark as pending - 0 rows updated)";
+          cleanupMediaStoreEntry(fileUris[i], resolver);
+        }
+      }
+    } catch (Exception e) {
+      for (int i : commitIndexes) {
+        cleanupMediaStoreEntry(fileUris[i], resolver);
+        if (errors[i] == null) {
+          errors[i] = "Failed to commit media file: " + e.getMessage();
+        }
+      }
+    }
+
+    WritableArray results = Arguments.createArray();
+    for (int i = 0; i < count; i++) {
+      WritableMap result = Arguments.createMap();
+      result.putString("path", paths[i]);
+      result.putBoolean("success", errors[i] == null);
+      if (errors[i] == null) {
+        result.putString("uri", fileUris[i].toString());
+        result.putDouble("bytesWritten", bytesWritten[i]);
+      } else {
+        result.putString("error", errors[i]);
+      }
+      results.pushMap(result);
+    }
+
+    promise.resolve(results);
+  }
+
+  @ReactMethod
+  public void deleteMany(ReadableArray fileUris, Promise promise) {
+    ArrayList<ContentProviderOperation> deletes = new ArrayList<>();
+    for (int i = 0; i < fileUris.size(); i++) {
+      deletes.add(ContentProviderOperation.newDelete(Uri.parse(fileUris.getString(i))).build());
+    }
+
+    promise.resolve(applyBatchPerItem(deletes, fileUris));
+  }
+
+  @ReactMethod
+  public void updateMany(ReadableArray items, Promise promise) {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+      promise.reject("RNFS2.updateMany", "Android version not supported");
+      return;
+    }
+
+    ArrayList<ContentProviderOperation> updates = new ArrayList<>();
+    WritableArray fileUris = Arguments.createArray();
+    try {
+      for (int i = 0; i < items.size(); i++) {
+        ReadableMap item = items.getMap(i);
+        ReadableMap filedata = item.getMap("fileDescriptor");
+        if (!(filedata.hasKey("name") && filedata.hasKey("parentFolder") && filedata.hasKey("mimeType"))) {
+          promise.reject("RNFS2.updateMany", "Invalid filedata: " + filedata.toString());
+          return;
+        }
+
+        FileDescription fileDesc = new FileDescription(filedata.getString("name"), filedata.getString("mimeType"), filedata.getString("parentFolder"));
+        MediaType mediaType = MediaType.valueOf(item.getString("mediaType"));
+        updates.add(ContentProviderOperation.newUpdate(Uri.parse(item.getString("uri")))
+          .withValues(getUpdatedMediaFileValues(fileDesc, mediaType))
+          .build());
+        fileUris.pushString(item.getString("uri"));
+      }
+    } catch (Exception e) {
+      promise.reject("RNFS2.updateMany", "Invalid item: " + e.getMessage());
+      return;
+    }
+
+    promise.resolve(applyBatchPerItem(updates, fileUris));
+  }
+
+  /**
+   * Runs the operations as one batch. A batch is aborted as a whole when any operation throws (ie a
+   * RecoverableSecurityException for a file owned by another app), in that case every operation is
+   * retried on its own so the result still reports each item.
+   */
+  private WritableArray applyBatchPerItem(ArrayList<ContentProviderOperation> operations, ReadableArray fileUris) {
+    ContentResolver resolver = reactContext.getContentResolver();
+    int[] counts = new int[operations.size()];
+    String[] errors = new String[operations.size()];
+
+    try {
+      ContentProviderResult[] batchResults = resolver.applyBatch(MediaStore.AUTHORITY, operations);
+      for (int i = 0; i < batchResults.length; i++) {
+        counts[i] = batchResults[i].count != null ? batchResults[i].count : 0;
+      }
+    } catch (Exception batchError) {
+      for (int i = 0; i < operations.size(); i++) {
+        ArrayList<ContentProviderOperation> single = new ArrayList<>();
+        single.add(operations.get(i));
+        try {
+          ContentProviderResult[] singleResult = resolver.applyBatch(MediaStore.AUTHORITY, single);
+          counts[i] = singleResult[0].count != null ? singleResult[0].count : 0;
+        } catch (Exception e) {
+          // RecoverableSecurityException only exists from API 26, deleteMany and updateMany run on every version.
+          errors[i] = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && e instanceof RecoverableSecurityException
+            ? "App needs user permission to modify this file." + e.getMessage()
+            : e.getMessage();
+        }
+      }
+    }
+
+    WritableArray results = Arguments.createArray();
+    for (int i = 0; i < operations.size(); i++) {
+      WritableMap result = Arguments.createMap();
+      result.putString("uri", fileUris.getString(i));
+      result.putBoolean("success", errors[i] == null && counts[i] > 0);
+      if (errors[i] != null) {
+        result.putString("error", errors[i]);
+      }
+      results.pushMap(result);
+    }
+    return results;
+  }
+
   private Uri createNewMediaFile(FileDescription file, MediaType mediaType, Promise promise, ReactApplicationContext ctx) {
     // Add a specific media item.
     Context appCtx = reactContext.getApplicationContext();
@@ -329,7 +838,45 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
     }
   }
 
-  private void cleanupMediaStoreEntry(Uri fileUri, ContentResolver resolver) {
+  /**
+   * Inserts a new entry already flagged IS_PENDING so that other apps do not see it until
+   * commitPendingMediaFile is called. Used when the payload is streamed in from elsewhere (ie a download).
+   */
+  static Uri createPendingMediaFile(ContentResolver resolver, FileDescription file, MediaType mediaType) throws IOException {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+      throw new IOException("Android version not supported");
+    }
+
+    Uri fileUri = resolver.insert(getMediaUri(mediaType), getPendingMediaFileValues(file, mediaType));
+    if (fileUri == null) {
+      throw new IOException("Failed to create media file entry");
+    }
+    return fileUri;
+  }
+
+  private static ContentValues getPendingMediaFileValues(FileDescription file, MediaType mediaType) {
+    ContentValues fileDetails = getUpdatedMediaFileValues(file, mediaType);
+    fileDetails.put(MediaStore.MediaColumns.DATE_ADDED, System.currentTimeMillis() / 1000);
+    fileDetails.put(MediaStore.MediaColumns.IS_PENDING, 1);
+    return fileDetails;
+  }
+
+  private static ContentValues getUpdatedMediaFileValues(FileDescription file, MediaType mediaType) {
+    ContentValues fileDetails = new ContentValues();
+    fileDetails.put(MediaStore.MediaColumns.DATE_MODIFIED, System.currentTimeMillis() / 1000);
+    fileDetails.put(MediaStore.MediaColumns.MIME_TYPE, file.mimeType);
+    fileDetails.put(MediaStore.MediaColumns.DISPLAY_NAME, file.name);
+    fileDetails.put(MediaStore.MediaColumns.RELATIVE_PATH, getRelativePath(mediaType, null) + '/' + file.parentFolder);
+    return fileDetails;
+  }
+
+  static boolean commitPendingMediaFile(ContentResolver resolver, Uri fileUri) {
+    ContentValues commitValues = new ContentValues();
+    commitValues.put(MediaStore.MediaColumns.IS_PENDING, 0);
+    return resolver.update(fileUri, commitValues, null, null) > 0;
+  }
+
+  static void cleanupMediaStoreEntry(Uri fileUri, ContentResolver resolver) {
     try {
       resolver.delete(fileUri, null, null);
     } catch (Exception deleteError) {
@@ -345,89 +892,213 @@ public class RNFSMediaStoreManager extends ReactContextBaseJavaModule {
     return uri;
   }
 
-  private InputStream getSourceInputStream(String path) throws IOException {
+  /**
+   * The source of a media write. Sources that can be opened as a file descriptor (files and most
+   * content providers) expose it so the copy can stay in the kernel, others are read as a stream.
+   */
+  private static class MediaSource implements Closeable {
+    final ParcelFileDescriptor descriptor;
+    final InputStream stream;
+
+    MediaSource(ParcelFileDescriptor descriptor, InputStream stream) {
+      this.descriptor = descriptor;
+      this.stream = stream;
+    }
+
+    /**
+     * @return the size of the source in bytes, or -1 when it is unknown (ie a pipe)
+     */
+    long getLength() {
+      return descriptor != null ? descriptor.getStatSize() : -1;
+    }
+
+    InputStream getInputStream() {
+      return descriptor != null ? new FileInputStream(descriptor.getFileDescriptor()) : stream;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (descriptor != null) {
+        descriptor.close();
+      } else {
+        stream.close();
+      }
+    }
+  }
+
+  private MediaSource openMediaSource(String path) throws IOException {
     Uri uri = getSourceUri(path);
-    InputStream stream = reactContext.getContentResolver().openInputStream(uri);
+    ContentResolver resolver = reactContext.getContentResolver();
+
+    ParcelFileDescriptor descriptor = null;
+    try {
+      descriptor = resolver.openFileDescriptor(uri, "r");
+    } catch (FileNotFoundException | SecurityException e) {
+      // the provider may still serve the content as a stream
+    }
+    if (descriptor != null) {
+      return new MediaSource(descriptor, null);
+    }
+
+    InputStream stream = resolver.openInputStream(uri);
     if (stream == null) {
       throw new IOException("Could not open input stream for: " + path);
     }
-    return stream;
+    return new MediaSource(null, stream);
   }
 
-  private boolean writeToMediaFile(Uri fileUri, String filePath, boolean transformFile, boolean shouldCleanupOnFailure, Promise promise, ReactApplicationContext ctx) {
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-      Context appCtx = ctx.getApplicationContext();
-      ContentResolver resolver = appCtx.getContentResolver();
-      OutputStream stream = null;
+  interface WriteProgressListener {
+    void onProgress(long bytesWritten, long contentLength, boolean done);
+  }
 
-      try {
-        if (fileUri == null) {
-          promise.reject("RNFS2.createMediaFile", "Invalid file URI");
-          return false;
-        }
+  /**
+   * @return a listener emitting MediaStoreWriteProgress events for options.jobId, or null when the
+   * caller did not ask for progress
+   */
+  private WriteProgressListener getProgressListener(ReadableMap options) {
+    if (options == null || !options.hasKey("jobId")) {
+      return null;
+    }
 
-        InputStream sourceStream;
-        try {
-          sourceStream = getSourceInputStream(filePath);
-        } catch (IOException e) {
-          promise.reject("ENOENT", "Source not accessible: " + filePath);
-          return false;
-        }
+    final int jobId = options.getInt("jobId");
+    final long progressInterval = options.hasKey("progressInterval") ? options.getInt("progressInterval") : DEFAULT_PROGRESS_INTERVAL;
+    return new WriteProgressListener() {
+      private long lastProgressAt;
 
-        ParcelFileDescriptor descr = appCtx.getContentResolver().openFileDescriptor(fileUri, "w");
-        if (descr == null) {
-          sourceStream.close();
-          promise.reject("RNFS2.createMediaFile", "Failed to open file descriptor");
-          return false;
+      public void onProgress(long bytesWritten, long contentLength, boolean done) {
+        long now = System.currentTimeMillis();
+        if (!done && now - lastProgressAt < progressInterval) {
+          return;
         }
+        lastProgressAt = now;
+
+        WritableMap data = Arguments.createMap();
+        data.putInt("jobId", jobId);
+        data.putDouble("bytesWritten", bytesWritten);
+        data.putDouble("contentLength", contentLength);
+        reactContext
+          .getJSModule(RCTNativeAppEventEmitter.class)
+          .emit("MediaStoreWriteProgress", data);
+      }
+    };
+  }
 
-        try (sourceStream; descr; FileOutputStream out = new FileOutputStream(descr.getFileDescriptor())) {
-          if (transformFile) {
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            byte[] chunk = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = sourceStream.read(chunk)) != -1) {
-              buffer.write(chunk, 0, bytesRead);
-            }
-            byte[] bytes = buffer.toByteArray();
+  /**
+   * Copies the source into the media entry. Without a transform and with a descriptor on both sides
+   * the bytes are moved with FileChannel.transferTo, which the platform turns into sendfile so the
+   * payload never passes through the Java heap. Everything else is streamed.
+   *
+   * @return the number of bytes written to the media entry
+   */
+  private long copyToMediaUri(Uri fileUri, MediaSource source, boolean transformFile, WriteProgressListener listener) throws IOException {
+    ContentResolver resolver = reactContext.getContentResolver();
+    long contentLength = source.getLength();
 
-            if (RNFSFileTransformer.sharedFileTransformer == null) {
-              throw new IllegalStateException("Write to media file with transform was specified but the shared file transformer is not set");
-            }
-            byte[] transformedBytes = RNFSFileTransformer.sharedFileTransformer.onWriteFile(bytes);
-            out.write(transformedBytes);
+    try (ParcelFileDescriptor descr = resolver.openFileDescriptor(fileUri, "w")) {
+      if (descr == null) {
+        throw new IOException("Failed to open file descriptor");
+      }
+
+      try (FileOutputStream out = new FileOutputStream(descr.getFileDescriptor())) {
+        long bytesWritten;
+        if (!transformFile && contentLength >= 0) {
+          bytesWritten = transferTo(new FileInputStream(source.descriptor.getFileDescriptor()).getChannel(), out.getChannel(), contentLength, listener);
+        } else {
+          ProgressOutputStream counted = new ProgressOutputStream(out, contentLength, listener);
+          if (transformFile) {
+            RNFSFileTransformer.transform(source.getInputStream(), counted, RNFSFileTransformer.getWriteTransformer());
           } else {
-            FileUtils.copy(sourceStream, out);
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int count;
+            InputStream in = source.getInputStream();
+            while ((count = in.read(buffer)) != -1) {
+              counted.write(buffer, 0, count);
+            }
           }
+          bytesWritten = counted.bytesWritten;
         }
 
-        stream = resolver.openOutputStream(fileUri);
+        if (listener != null) {
+          listener.onProgress(bytesWritten, contentLength, true);
+        }
+        return bytesWritten;
+      }
+    }
+  }
 
-        if (stream == null) {
-          promise.reject(new IOException("Failed to get output stream."));
-          return false;
+  private static long transferTo(FileChannel input, FileChannel output, long contentLength, WriteProgressListener listener) throws IOException {
+    long position = 0;
+    while (position < contentLength) {
+      long count = input.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, contentLength - position), output);
+      if (count <= 0) {
+        // the source shrank while it was being copied
+        break;
+      }
+      position += count;
+      if (listener != null) {
+        listener.onProgress(position, contentLength, false);
+      }
+    }
+    return position;
+  }
+
+  private static class ProgressOutputStream extends FilterOutputStream {
+    private final long contentLength;
+    private final WriteProgressListener listener;
+    long bytesWritten;
+
+    ProgressOutputStream(OutputStream out, long contentLength, WriteProgressListener listener) {
+      super(out);
+      this.contentLength = contentLength;
+      this.listener = listener;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      bytesWritten += len;
+      if (listener != null) {
+        listener.onProgress(bytesWritten, contentLength, false);
+      }
+    }
+  }
+
+  /**
+   * @return the number of bytes written, or -1 when the write failed and the promise was rejected
+   */
+  private long writeToMediaFile(Uri fileUri, String filePath, boolean transformFile, boolean shouldCleanupOnFailure, WriteProgressListener listener, Promise promise, ReactApplicationContext ctx) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      ContentResolver resolver = ctx.getApplicationContext().getContentResolver();
+
+      if (fileUri == null) {
+        promise.reject("RNFS2.createMediaFile", "Invalid file URI");
+        return -1;
+      }
+
+      MediaSource source;
+      try {
+        source = openMediaSource(filePath);
+      } catch (IOException | SecurityException e) {
+        if (shouldCleanupOnFailure) {
+          cleanupMediaStoreEntry(fileUri, resolver);
         }
+        promise.reject("ENOENT", "Source not accessible: " + filePath);
+        return -1;
+      }
+
+      try (source) {
+        return copyToMediaUri(fileUri, source, transformFile, listener);
       } catch (Exception e) {
         if (shouldCleanupOnFailure) {
           cleanupMediaStoreEntry(fileUri, resolver);
         }
 
         promise.reject("RNFS2.createMediaFile", "Failed to write file: " + e.getMessage());
-        return false;
-      } finally {
-        if (stream != null) {
-          try {
-            stream.close();
-          } catch (IOException e) {
-            Log.e("RNFS2", "Failed to close output stream: " + e.getMessage());
-          }
-        }
+        return -1;
       }
-
-      return true;
     } else {
       promise.reject("RNFS2.createMediaFile", "Android version not supported");
-      return false;
+      return -1;
     }
   }
 
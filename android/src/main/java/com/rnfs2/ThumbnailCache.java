@@ -0,0 +1,285 @@
+package com.rnfs2;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+import android.util.Size;
+
+import com.rnfs2.Utils.MimeType;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Creates JPEG thumbnails of images and videos and keeps them in a size-bounded LRU directory under the
+ * caches dir. Entries are keyed by source, modification time, size and the requested dimensions, so an
+ * edited source gets a new thumbnail and stale ones age out of the cache.
+ */
+class ThumbnailCache {
+  private static final String DIRECTORY_NAME = "RNFS2Thumbnails";
+  static final long DEFAULT_MAX_BYTES = 50 * 1024 * 1024;
+  private static final String[] KEY_PROJECTION = {MediaStore.MediaColumns.DATE_MODIFIED, OpenableColumns.SIZE};
+  private static final String[] SIZE_PROJECTION = {OpenableColumns.SIZE};
+
+  private final Context context;
+  private final File directory;
+  private long maxBytes = DEFAULT_MAX_BYTES;
+
+  // Cache file name -> size in bytes, in access order. Guarded by this.
+  private LinkedHashMap<String, Long> entries;
+  private long totalBytes;
+
+  ThumbnailCache(Context context) {
+    this.context = context;
+    this.directory = new File(context.getCacheDir(), DIRECTORY_NAME);
+  }
+
+  synchronized void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    loadEntries();
+    trim();
+  }
+
+  /**
+   * @return the path of a cached thumbnail of source no larger than width x height
+   */
+  String getThumbnail(String source, int width, int height, int quality) throws IOException {
+    Uri uri = getSourceUri(source);
+    String name = getCacheKey(uri, width, height, quality) + ".jpg";
+    File file = new File(directory, name);
+
+    synchronized (this) {
+      loadEntries();
+      // get() moves the entry to the most recently used end.
+      Long cachedSize = entries.get(name);
+      if (cachedSize != null) {
+        if (file.isFile()) {
+          file.setLastModified(System.currentTimeMillis());
+          return file.getAbsolutePath();
+        }
+        entries.remove(name);
+        totalBytes -= cachedSize;
+      }
+    }
+
+    Bitmap bitmap = createThumbnail(uri, width, height);
+    if (bitmap == null) {
+      throw new IOException("Could not create a thumbnail for: " + source);
+    }
+
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Could not create the thumbnail cache directory");
+    }
+
+    // Write under a temporary name so a concurrent request never sees a partial file.
+    File temp = new File(directory, name + "." + Thread.currentThread().getId() + ".tmp");
+    try (FileOutputStream out = new FileOutputStream(temp)) {
+      if (!bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out)) {
+        throw new IOException("Could not encode the thumbnail for: " + source);
+      }
+    } catch (IOException e) {
+      temp.delete();
+      throw e;
+    } finally {
+      bitmap.recycle();
+    }
+
+    synchronized (this) {
+      if (!temp.renameTo(file)) {
+        temp.delete();
+        throw new IOException("Could not store the thumbnail for: " + source);
+      }
+      Long previous = entries.put(name, file.length());
+      totalBytes += file.length() - (previous != null ? previous : 0);
+      trim();
+    }
+    return file.getAbsolutePath();
+  }
+
+  private Uri getSourceUri(String source) {
+    Uri uri = Uri.parse(source);
+    if (uri.getScheme() == null) {
+      uri = Uri.fromFile(new File(source));
+    }
+    return uri;
+  }
+
+  private String getCacheKey(Uri uri, int width, int height, int quality) throws IOException {
+    long modified = 0;
+    long size = 0;
+
+    if (ContentResolver.SCHEME_FILE.equals(uri.getScheme())) {
+      File file = new File(uri.getPath());
+      if (!file.isFile()) {
+        throw new IOException("File does not exist: " + uri.getPath());
+      }
+      modified = file.lastModified();
+      size = file.length();
+    } else {
+      Cursor cursor = null;
+      try {
+        try {
+          cursor = context.getContentResolver().query(uri, KEY_PROJECTION, null, null, null);
+        } catch (IllegalArgumentException e) {
+          // Providers outside MediaStore reject DATE_MODIFIED, every openable provider has a size.
+          cursor = context.getContentResolver().query(uri, SIZE_PROJECTION, null, null, null);
+        }
+        if (cursor != null && cursor.moveToFirst()) {
+          int modifiedIndex = cursor.getColumnIndex(MediaStore.MediaColumns.DATE_MODIFIED);
+          int sizeIndex = cursor.getColumnIndex(OpenableColumns.SIZE);
+          if (modifiedIndex >= 0 && !cursor.isNull(modifiedIndex)) modified = cursor.getLong(modifiedIndex);
+          if (sizeIndex >= 0 && !cursor.isNull(sizeIndex)) size = cursor.getLong(sizeIndex);
+        }
+      } catch (Exception e) {
+        // Providers without metadata are keyed by URI only.
+      } finally {
+        if (cursor != null) cursor.close();
+      }
+    }
+
+    String key = uri + "|" + modified + "|" + size + "|" + width + "x" + height + "|" + quality;
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-1");
+      StringBuilder hex = new StringBuilder();
+      for (byte b : md.digest(key.getBytes("UTF-8"))) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private Bitmap createThumbnail(Uri uri, int width, int height) throws IOException {
+    ContentResolver resolver = context.getContentResolver();
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+      try {
+        return resolver.loadThumbnail(uri, new Size(width, height), null);
+      } catch (IOException e) {
+        // Not a provider-backed media item, decode it ourselves.
+      }
+    }
+
+    String mimeType = resolver.getType(uri);
+    if (mimeType == null && uri.getPath() != null) {
+      mimeType = MimeType.getMimeTypeFromExtension(MimeType.substringAfterLast(uri.getPath(), ".").toLowerCase());
+    }
+    if (mimeType != null && mimeType.startsWith("video/")) {
+      return createVideoThumbnail(uri, width, height);
+    }
+    return createImageThumbnail(uri, width, height);
+  }
+
+  private Bitmap createImageThumbnail(Uri uri, int width, int height) throws IOException {
+    ContentResolver resolver = context.getContentResolver();
+
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    try (InputStream in = resolver.openInputStream(uri)) {
+      BitmapFactory.decodeStream(in, null, options);
+    }
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return null;
+    }
+
+    // Decode at the largest power-of-two reduction that still covers the requested size.
+    int sampleSize = 1;
+    while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+      sampleSize *= 2;
+    }
+
+    options = new BitmapFactory.Options();
+    options.inSampleSize = sampleSize;
+    try (InputStream in = resolver.openInputStream(uri)) {
+      return scaleToFit(BitmapFactory.decodeStream(in, null, options), width, height);
+    }
+  }
+
+  private Bitmap createVideoThumbnail(Uri uri, int width, int height) throws IOException {
+    MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+    try {
+      if (ContentResolver.SCHEME_FILE.equals(uri.getScheme())) {
+        retriever.setDataSource(uri.getPath());
+      } else {
+        retriever.setDataSource(context, uri);
+      }
+
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+        return retriever.getScaledFrameAtTime(-1, MediaMetadataRetriever.OPTION_CLOSEST_SYNC, width, height);
+      }
+      return scaleToFit(retriever.getFrameAtTime(-1, MediaMetadataRetriever.OPTION_CLOSEST_SYNC), width, height);
+    } catch (RuntimeException e) {
+      throw new IOException("Could not read a frame: " + e.getMessage());
+    } finally {
+      retriever.release();
+    }
+  }
+
+  private static Bitmap scaleToFit(Bitmap bitmap, int width, int height) {
+    if (bitmap == null) return null;
+
+    float scale = Math.min((float) width / bitmap.getWidth(), (float) height / bitmap.getHeight());
+    if (scale >= 1) {
+      return bitmap;
+    }
+
+    Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(Math.round(bitmap.getWidth() * scale), 1), Math.max(Math.round(bitmap.getHeight() * scale), 1), true);
+    if (scaled != bitmap) {
+      bitmap.recycle();
+    }
+    return scaled;
+  }
+
+  private void loadEntries() {
+    if (entries != null) return;
+
+    entries = new LinkedHashMap<>(16, 0.75f, true);
+    totalBytes = 0;
+
+    File[] files = directory.listFiles();
+    if (files == null) return;
+
+    // Files are touched on every hit, so their modification time restores the LRU order.
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        return Long.compare(a.lastModified(), b.lastModified());
+      }
+    });
+    for (File file : files) {
+      if (file.getName().endsWith(".tmp")) {
+        file.delete();
+        continue;
+      }
+      entries.put(file.getName(), file.length());
+      totalBytes += file.length();
+    }
+  }
+
+  private void trim() {
+    Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+    while (totalBytes > maxBytes && iterator.hasNext()) {
+      Map.Entry<String, Long> eldest = iterator.next();
+      new File(directory, eldest.getKey()).delete();
+      totalBytes -= eldest.getValue();
+      iterator.remove();
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.rnfs2;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import java.net.URL;
+import java.util.*;
+
+import com.facebook.react.bridge.ReadableMap;
+
+public class UploadParams {
+  public interface OnTaskCompleted {
+    void onTaskCompleted(UploadResult res);
+  }
+
+  public interface OnUploadBegin {
+    void onUploadBegin();
+  }
+
+  public interface OnUploadProgress {
+    void onUploadProgress(long totalBytesExpectedToSend, long totalBytesSent);
+  }
+
+  public static class FileItem {
+    public String name;
+    public String filename;
+    public String filetype;
+    public Uri uri;
+    // -1 when the size could not be determined up front, the body is then sent chunked.
+    public long size = -1;
+  }
+
+  public URL url;
+  public List<FileItem> files;
+  public String method;
+  public ReadableMap headers;
+  public ReadableMap fields;
+  public boolean binaryStreamOnly;
+  public boolean chunked;
+  public int progressInterval;
+  public int readTimeout;
+  public int connectionTimeout;
+  public ContentResolver contentResolver;
+  public OnTaskCompleted onTaskCompleted;
+  public OnUploadBegin onUploadBegin;
+  public OnUploadProgress onUploadProgress;
+}
@@ -0,0 +1,11 @@
+package com.rnfs2;
+
+import java.util.Map;
+
+public class UploadResult {
+  public int statusCode;
+  public Map<String, String> headers;
+  public String body;
+  public long bytesSent;
+  public Exception exception;
+}
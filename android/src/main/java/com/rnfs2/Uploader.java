@@ -0,0 +1,270 @@
+package com.rnfs2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.os.AsyncTask;
+
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+
+public class Uploader extends AsyncTask<UploadParams, long[], UploadResult> {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int DEFAULT_PROGRESS_INTERVAL = 100;
+  private static final String LINE_END = "\r\n";
+
+  private UploadParams mParam;
+  private AtomicBoolean mAbort = new AtomicBoolean(false);
+  UploadResult res;
+
+  protected UploadResult doInBackground(UploadParams... params) {
+    mParam = params[0];
+    res = new UploadResult();
+
+    new Thread(new Runnable() {
+      public void run() {
+        try {
+          upload(mParam, res);
+          mParam.onTaskCompleted.onTaskCompleted(res);
+        } catch (Exception ex) {
+          res.exception = ex;
+          mParam.onTaskCompleted.onTaskCompleted(res);
+        }
+      }
+    }).start();
+
+    return res;
+  }
+
+  private void upload(UploadParams param, UploadResult res) throws Exception {
+    HttpURLConnection connection = null;
+
+    try {
+      String boundary = "RNFS2-" + UUID.randomUUID().toString();
+      List<byte[]> fileHeaders = new ArrayList<>();
+      byte[] fieldsPart = new byte[0];
+      byte[] closingPart = new byte[0];
+
+      // The multipart envelope is small, so it is prepared up front to know the exact body length.
+      if (!param.binaryStreamOnly) {
+        fieldsPart = getFieldsPart(param, boundary);
+        for (UploadParams.FileItem file : param.files) {
+          fileHeaders.add(getFileHeader(file, boundary));
+        }
+        closingPart = ("--" + boundary + "--" + LINE_END).getBytes(StandardCharsets.UTF_8);
+      }
+
+      long contentLength = getContentLength(param, fieldsPart, fileHeaders, closingPart);
+
+      connection = (HttpURLConnection) param.url.openConnection();
+      connection.setDoOutput(true);
+      connection.setRequestMethod(param.method);
+      connection.setConnectTimeout(param.connectionTimeout);
+      connection.setReadTimeout(param.readTimeout);
+
+      if (param.binaryStreamOnly) {
+        String filetype = param.files.get(0).filetype;
+        connection.setRequestProperty("Content-Type", filetype != null ? filetype : "application/octet-stream");
+      } else {
+        connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+      }
+
+      ReadableMapKeySetIterator iterator = param.headers.keySetIterator();
+      while (iterator.hasNextKey()) {
+        String key = iterator.nextKey();
+        connection.setRequestProperty(key, param.headers.getString(key));
+      }
+
+      // Never let HttpURLConnection buffer the body, that would hold every file in memory.
+      if (contentLength >= 0 && !param.chunked) {
+        connection.setFixedLengthStreamingMode(contentLength);
+      } else {
+        connection.setChunkedStreamingMode(CHUNK_SIZE);
+      }
+
+      if (param.onUploadBegin != null) {
+        param.onUploadBegin.onUploadBegin();
+      }
+
+      ProgressTracker progress = new ProgressTracker(param, contentLength);
+      byte[] buffer = new byte[BUFFER_SIZE];
+
+      try (OutputStream output = connection.getOutputStream()) {
+        if (param.binaryStreamOnly) {
+          writeFile(param, param.files.get(0), output, buffer, progress);
+        } else {
+          progress.write(output, fieldsPart);
+          for (int i = 0; i < param.files.size(); i++) {
+            progress.write(output, fileHeaders.get(i));
+            writeFile(param, param.files.get(i), output, buffer, progress);
+            progress.write(output, LINE_END.getBytes(StandardCharsets.UTF_8));
+          }
+          progress.write(output, closingPart);
+        }
+        output.flush();
+      }
+
+      progress.publish(true);
+      res.bytesSent = progress.bytesSent;
+      res.statusCode = connection.getResponseCode();
+      res.headers = getResponseHeaders(connection);
+      res.body = getResponseBody(connection, res.statusCode);
+    } finally {
+      if (connection != null) connection.disconnect();
+    }
+  }
+
+  private void writeFile(UploadParams param, UploadParams.FileItem file, OutputStream output, byte[] buffer, ProgressTracker progress) throws Exception {
+    InputStream input = param.contentResolver.openInputStream(file.uri);
+    if (input == null) {
+      throw new FileNotFoundException("Could not open an input stream for '" + file.uri + "'");
+    }
+
+    try (InputStream in = input) {
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        if (mAbort.get()) throw new Exception("Upload has been aborted");
+        output.write(buffer, 0, count);
+        progress.add(count);
+      }
+    }
+  }
+
+  private static byte[] getFieldsPart(UploadParams param, String boundary) {
+    StringBuilder fields = new StringBuilder();
+    ReadableMapKeySetIterator iterator = param.fields.keySetIterator();
+
+    while (iterator.hasNextKey()) {
+      String key = iterator.nextKey();
+      fields.append("--").append(boundary).append(LINE_END)
+        .append("Content-Disposition: form-data; name=\"").append(escapeHeaderParam(key)).append("\"").append(LINE_END)
+        .append(LINE_END)
+        .append(param.fields.getString(key)).append(LINE_END);
+    }
+
+    return fields.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] getFileHeader(UploadParams.FileItem file, String boundary) {
+    String header = "--" + boundary + LINE_END
+      + "Content-Disposition: form-data; name=\"" + escapeHeaderParam(file.name) + "\"; filename=\"" + escapeHeaderParam(file.filename) + "\"" + LINE_END
+      + "Content-Type: " + (file.filetype != null ? file.filetype.replaceAll("[\r\n]", "") : "application/octet-stream") + LINE_END
+      + LINE_END;
+    return header.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Percent-encodes the characters that would end a quoted header parameter or the header itself, the
+   * way browsers encode form-data names and filenames.
+   */
+  static String escapeHeaderParam(String value) {
+    if (value == null) return "";
+    return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+  }
+
+  /**
+   * @return the exact body length, or -1 when any file size is unknown
+   */
+  private static long getContentLength(UploadParams param, byte[] fieldsPart, List<byte[]> fileHeaders, byte[] closingPart) {
+    if (param.binaryStreamOnly) {
+      return param.files.get(0).size;
+    }
+
+    long length = fieldsPart.length + closingPart.length;
+    for (int i = 0; i < param.files.size(); i++) {
+      long size = param.files.get(i).size;
+      if (size < 0) {
+        return -1;
+      }
+      length += fileHeaders.get(i).length + size + LINE_END.length();
+    }
+    return length;
+  }
+
+  private static Map<String, String> getResponseHeaders(HttpURLConnection connection) {
+    Map<String, String> headersFlat = new HashMap<>();
+
+    for (Map.Entry<String, List<String>> entry : connection.getHeaderFields().entrySet()) {
+      String headerKey = entry.getKey();
+      String valueKey = entry.getValue().get(0);
+
+      if (headerKey != null && valueKey != null) {
+        headersFlat.put(headerKey, valueKey);
+      }
+    }
+
+    return headersFlat;
+  }
+
+  private static String getResponseBody(HttpURLConnection connection, int statusCode) throws IOException {
+    InputStream input = statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+    if (input == null) {
+      return "";
+    }
+
+    try (InputStream in = input; ByteArrayOutputStream body = new ByteArrayOutputStream()) {
+      byte[] buffer = new byte[8 * 1024];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        body.write(buffer, 0, count);
+      }
+      return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Counts bytes handed to the connection and publishes progress at most once per progress interval.
+   */
+  private class ProgressTracker {
+    private final long totalBytesExpectedToSend;
+    private final long interval;
+    private final boolean enabled;
+    private long bytesSent;
+    private long lastEmitTimestamp;
+
+    ProgressTracker(UploadParams param, long totalBytesExpectedToSend) {
+      this.totalBytesExpectedToSend = totalBytesExpectedToSend;
+      this.interval = param.progressInterval > 0 ? param.progressInterval : DEFAULT_PROGRESS_INTERVAL;
+      this.enabled = param.onUploadProgress != null;
+    }
+
+    void write(OutputStream output, byte[] data) throws IOException {
+      output.write(data);
+      add(data.length);
+    }
+
+    void add(long count) {
+      bytesSent += count;
+      publish(false);
+    }
+
+    void publish(boolean force) {
+      if (!enabled) return;
+
+      long timestamp = System.currentTimeMillis();
+      if (force || timestamp - lastEmitTimestamp >= interval) {
+        lastEmitTimestamp = timestamp;
+        publishProgress(new long[]{totalBytesExpectedToSend, bytesSent});
+      }
+    }
+  }
+
+  protected void stop() {
+    mAbort.set(true);
+  }
+
+  @Override
+  protected void onProgressUpdate(long[]... values) {
+    super.onProgressUpdate(values);
+    if (mParam.onUploadProgress != null) {
+      mParam.onUploadProgress.onUploadProgress(values[0][0], values[0][1]);
+    }
+  }
+}
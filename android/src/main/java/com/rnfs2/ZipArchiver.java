@@ -0,0 +1,360 @@
+package com.rnfs2;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Extracts and creates zip archives without holding them in memory. Extraction reads the entries with
+ * ZipFile's random access, so independent entries are inflated and written in parallel. One instance
+ * runs one job, which can be cancelled from any thread.
+ */
+class ZipArchiver {
+  interface ProgressListener {
+    void onProgress(long bytesWritten, long totalBytes, int entriesWritten, int totalEntries);
+  }
+
+  static class Result {
+    int entries;
+    int skipped;
+    long bytesWritten;
+  }
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  static final String ABORTED_MESSAGE = "Zip job has been aborted";
+
+  final int jobId;
+  private final long progressInterval;
+  private final ProgressListener listener;
+  private volatile boolean cancelled;
+
+  private final AtomicLong bytesWritten = new AtomicLong();
+  private final AtomicInteger entriesWritten = new AtomicInteger();
+  private long totalBytes;
+  private int totalEntries;
+  private long lastProgress;
+
+  ZipArchiver(int jobId, long progressInterval, ProgressListener listener) {
+    this.jobId = jobId;
+    this.progressInterval = progressInterval;
+    this.listener = listener;
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  Result unzip(File zipFile, File destDir, int concurrency, boolean overwrite) throws IOException {
+    String destPath = destDir.getCanonicalPath() + File.separator;
+    final Result result = new Result();
+    // Entries are extracted to a temporary file next to their target and only moved in once every entry
+    // was extracted, so a failed or cancelled job never touches existing files. Directories the job
+    // created, the temporary files and the targets that did not exist before are removed on failure.
+    List<File> createdDirectories = new ArrayList<>();
+    final Map<File, File> extracted = new ConcurrentHashMap<>();
+    Set<File> committed = new HashSet<>();
+    Set<File> existing = new HashSet<>();
+    boolean completed = false;
+
+    try (final ZipFile zip = new ZipFile(zipFile)) {
+      // Every entry is checked before anything is written, so a malicious archive leaves no files behind.
+      List<ZipEntry> files = new ArrayList<>();
+      Set<File> directories = new LinkedHashSet<>();
+      // Canonical target path -> whether it is a directory entry.
+      Map<String, Boolean> seen = new HashMap<>();
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        File target = new File(destDir, entry.getName());
+        String targetPath = target.getCanonicalPath();
+        if (!(targetPath + File.separator).startsWith(destPath)) {
+          throw new IOException("Zip entry is outside of the target directory: " + entry.getName());
+        }
+        // Two entries with one target would have two workers writing the same file.
+        Boolean previous = seen.put(targetPath, entry.isDirectory());
+        if (previous != null && !(previous && entry.isDirectory())) {
+          throw new IOException("Duplicate zip entry: " + entry.getName());
+        }
+
+        if (entry.isDirectory()) {
+          directories.add(target);
+        } else {
+          files.add(entry);
+          // Directories are created up front, workers racing on mkdirs() could fail each other.
+          directories.add(target.getParentFile());
+        }
+      }
+
+      for (File directory : directories) {
+        mkdirs(directory, createdDirectories);
+      }
+
+      // Largest entries first, so one big entry does not end up alone at the tail of the job.
+      Collections.sort(files, new Comparator<ZipEntry>() {
+        @Override
+        public int compare(ZipEntry a, ZipEntry b) {
+          return Long.compare(b.getSize(), a.getSize());
+        }
+      });
+
+      for (ZipEntry entry : files) {
+        if (entry.getSize() > 0) {
+          totalBytes += entry.getSize();
+        }
+      }
+      totalEntries = files.size();
+
+      ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, files.size())));
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (final ZipEntry entry : files) {
+          final File target = new File(destDir, entry.getName());
+          if (target.exists()) {
+            if (!overwrite) {
+              result.skipped++;
+              continue;
+            }
+            existing.add(target);
+          }
+
+          futures.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+              extract(zip, entry, target, extracted);
+              return null;
+            }
+          }));
+        }
+
+        for (Future<?> future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException e) {
+            // Stop the remaining entries, the first failure is the one reported.
+            cancelled = true;
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+          } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new IOException("Unzip was interrupted");
+          }
+        }
+      } finally {
+        executor.shutdownNow();
+        // The workers read from zip and add to extracted, both must be done with before we continue.
+        awaitTermination(executor);
+      }
+
+      if (cancelled) {
+        throw new IOException(ABORTED_MESSAGE);
+      }
+
+      // Past this point the job is not cancelled anymore, renaming is quick.
+      for (Map.Entry<File, File> file : extracted.entrySet()) {
+        File target = file.getKey();
+        if (!file.getValue().renameTo(target)) {
+          throw new IOException("Could not move extracted file to: " + target);
+        }
+        committed.add(target);
+      }
+      completed = true;
+    } finally {
+      if (!completed) {
+        removeExtracted(extracted, committed, existing, createdDirectories);
+      }
+    }
+
+    reportProgress(true);
+    result.entries = entriesWritten.get();
+    result.bytesWritten = bytesWritten.get();
+    return result;
+  }
+
+  Result zip(File sourceDir, File zipFile, int level) throws IOException {
+    String zipPath = zipFile.getCanonicalPath();
+    // Entry names come from the walked paths, canonical paths would resolve symlinks out of the tree.
+    String rootPath = sourceDir.getAbsolutePath();
+
+    List<File> files = new ArrayList<>();
+    // Canonical paths of the directories already walked, a symlink back up the tree is not followed.
+    Set<String> visited = new HashSet<>();
+    Deque<File> queue = new ArrayDeque<>();
+    queue.add(sourceDir.getAbsoluteFile());
+    while (!queue.isEmpty()) {
+      File directory = queue.poll();
+      File[] children = directory.listFiles();
+      if (children == null || !visited.add(directory.getCanonicalPath())) continue;
+
+      files.add(directory);
+      for (File child : children) {
+        if (child.isDirectory()) {
+          queue.add(child);
+        } else if (!child.getCanonicalPath().equals(zipPath)) {
+          files.add(child);
+          totalBytes += child.length();
+          totalEntries++;
+        }
+      }
+    }
+
+    Result result = new Result();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile), BUFFER_SIZE))) {
+      out.setLevel(level);
+      for (File file : files) {
+        if (cancelled) {
+          throw new IOException(ABORTED_MESSAGE);
+        }
+        String name = file.getAbsolutePath().substring(rootPath.length());
+        if (name.startsWith(File.separator)) {
+          name = name.substring(1);
+        }
+        if (file.isDirectory()) {
+          // The root itself has no entry.
+          if (name.isEmpty()) continue;
+          name += "/";
+        }
+
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(file.lastModified());
+        out.putNextEntry(entry);
+        if (!file.isDirectory()) {
+          try (InputStream in = new FileInputStream(file)) {
+            copy(in, out, buffer);
+          }
+          entriesWritten.incrementAndGet();
+        }
+        out.closeEntry();
+      }
+    } catch (IOException e) {
+      zipFile.delete();
+      throw e;
+    }
+
+    reportProgress(true);
+    result.entries = entriesWritten.get();
+    result.bytesWritten = bytesWritten.get();
+    return result;
+  }
+
+  private void extract(ZipFile zip, ZipEntry entry, File target, Map<File, File> extracted) throws IOException {
+    if (cancelled) return;
+
+    File temp = new File(target.getParentFile(), "." + target.getName() + "." + jobId + ".tmp");
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream in = zip.getInputStream(entry);
+         OutputStream out = new FileOutputStream(temp)) {
+      copy(in, out, buffer);
+    } catch (IOException e) {
+      temp.delete();
+      throw e;
+    }
+
+    if (cancelled) {
+      temp.delete();
+      return;
+    }
+    if (entry.getTime() != -1) {
+      temp.setLastModified(entry.getTime());
+    }
+    extracted.put(target, temp);
+    entriesWritten.incrementAndGet();
+    reportProgress(false);
+  }
+
+  private void copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      if (cancelled) {
+        throw new IOException(ABORTED_MESSAGE);
+      }
+      out.write(buffer, 0, read);
+      bytesWritten.addAndGet(read);
+      reportProgress(false);
+    }
+  }
+
+  private void reportProgress(boolean force) {
+    if (listener == null) return;
+
+    synchronized (this) {
+      long now = SystemClock.elapsedRealtime();
+      if (!force && now - lastProgress < progressInterval) return;
+      lastProgress = now;
+    }
+    listener.onProgress(bytesWritten.get(), totalBytes, entriesWritten.get(), totalEntries);
+  }
+
+  /**
+   * Creates directory and its missing parents, adding the ones it created to created (parents first).
+   */
+  private static void mkdirs(File directory, List<File> created) throws IOException {
+    if (directory.isDirectory()) return;
+
+    File parent = directory.getParentFile();
+    if (parent != null) {
+      mkdirs(parent, created);
+    }
+    if (directory.mkdir()) {
+      created.add(directory);
+    } else if (!directory.isDirectory()) {
+      throw new IOException("Could not create directory: " + directory);
+    }
+  }
+
+  private static void awaitTermination(ExecutorService executor) {
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void removeExtracted(Map<File, File> extracted, Set<File> committed, Set<File> existing, List<File> createdDirectories) {
+    for (Map.Entry<File, File> file : extracted.entrySet()) {
+      File target = file.getKey();
+      if (!committed.contains(target)) {
+        file.getValue().delete();
+      } else if (!existing.contains(target) && !target.delete()) {
+        Log.w("RNFS2", "Could not remove extracted file: " + target);
+      }
+    }
+    // Deepest first. Directories that still hold files (ie skipped existing ones) are kept.
+    for (int i = createdDirectories.size() - 1; i >= 0; i--) {
+      createdDirectories.get(i).delete();
+    }
+  }
+}
@@ -1,6 +1,8 @@
 import { EmitterSubscription, NativeEventEmitter, NativeModules, Platform } from 'react-native';
 import { decode as atob, encode as btoa } from 'base-64';
 import { decode as decode_utf8, encode as encode_utf8 } from 'utf8';
+// @ts-ignore - BlobManager has no type declarations
+import BlobManager from 'react-native/Libraries/Blob/BlobManager';
 import type {
   MkdirOptions,
   FileOptions,
@@ -9,13 +11,53 @@ import type {
   StatResult,
   DownloadFileOptions,
   DownloadFileResult,
+  DownloadStats,
+  PreconnectOptions,
+  PreconnectResult,
+  UploadFileOptions,
+  UploadFileResult,
   Encoding,
+  CacheRegionOptions,
+  CachePutOptions,
+  CacheStats,
+  StoreResult,
+  MaterializeOptions,
+  MaterializeResult,
+  StoreGcResult,
+  StoreStats,
+  UnzipOptions,
+  ZipOptions,
+  ZipResult,
+  ZipJobResult,
+  WatchEvent,
+  WatchOptions,
+  WatchSubscription,
+  ReadBlobOptions,
+  WriteBlobOptions,
+  ScanFilesOptions,
+  ScanFileResult,
   EncodingOrOptions,
   ProcessedOptions,
   FileDescriptor,
   MediaCollections,
   MediaStoreSearchOptions,
   MediaStoreQueryResult,
+  MediaStoreCopyItem,
+  MediaWriter,
+  MediaWriterOptions,
+  MediaWriterCommitResult,
+  ThumbnailOptions,
+  MediaStoreChangeEvent,
+  MediaStoreWatchOptions,
+  MediaStoreWatchSubscription,
+  MediaStoreListOptions,
+  MediaStoreListResult,
+  MediaStoreWriteOptions,
+  MediaStoreWriteResult,
+  MediaStoreCopyResult,
+  MediaStoreBatchOptions,
+  MediaStoreUpdateItem,
+  MediaStoreBatchResult,
 } from './types';
 
 let blobJSIHelper: any;
@@ -44,6 +86,16 @@ const getJobId = () => {
 
 const normalizeFilePath = (path: string) => (path.startsWith('file://') ? path.slice(7) : path);
 
+// Android accepts an options map on some methods that iOS exports without one, passing it on iOS would
+// break the bridge call arity.
+const androidOptions = (options: ProcessedOptions) => (Platform.OS === 'android' ? [options] : []);
+
+// Text encodings Android converts natively, skipping the base64 round trip over the bridge.
+const NATIVE_TEXT_ENCODINGS: Encoding[] = ['utf8', 'ascii', 'latin1'];
+
+const usesNativeEncoding = (options: ProcessedOptions) =>
+  Platform.OS === 'android' && NATIVE_TEXT_ENCODINGS.includes(options.encoding);
+
 function parseOptions(encodingOrOptions?: EncodingOrOptions): ProcessedOptions {
   let options = {
     encoding: 'utf8' as Encoding,
@@ -70,7 +122,7 @@ function encodeContents(contents: string, encoding: Encoding): string {
     return btoa(encode_utf8(contents));
   }
 
-  if (encoding === 'ascii') {
+  if (encoding === 'ascii' || encoding === 'latin1') {
     return btoa(contents);
   }
 
@@ -86,7 +138,7 @@ function decodeContents(b64: string, encoding: Encoding): string {
     return atob(decode_utf8(b64));
   }
 
-  if (encoding === 'ascii') {
+  if (encoding === 'ascii' || encoding === 'latin1') {
     return atob(b64);
   }
 
@@ -126,6 +178,72 @@ function getArrayBuffer(filePath: string): Promise<ArrayBuffer> {
   });
 }
 
+const withMediaStoreProgress = <T>(
+  options: MediaStoreWriteOptions,
+  write: (bridgeOptions: Record<string, any>) => Promise<T>
+): Promise<T> => {
+  if (!options.progress) {
+    return write({});
+  }
+
+  const jobId = getJobId();
+  const subscription = RNFS_NativeEventEmitter.addListener('MediaStoreWriteProgress', (res) => {
+    if (res.jobId === jobId) {
+      // @ts-ignore
+      options.progress(res);
+    }
+  });
+  const cleanup = () => subscription.remove();
+
+  return write({ jobId, progressInterval: options.progressInterval || 250 }).then(
+    (res) => {
+      cleanup();
+      return res;
+    },
+    (err) => {
+      cleanup();
+      throw err;
+    }
+  );
+};
+
+const startZipJob = (
+  options: UnzipOptions | ZipOptions,
+  bridgeOptions: Record<string, any>,
+  run: (bridgeOptions: Record<string, any>) => Promise<ZipResult>
+): ZipJobResult => {
+  const jobId = getJobId();
+  let subscription: EmitterSubscription | undefined;
+
+  if (options.progress) {
+    subscription = RNFS_NativeEventEmitter.addListener('ZipProgress', (res) => {
+      if (res.jobId === jobId) {
+        // @ts-ignore
+        options.progress(res);
+      }
+    });
+  }
+
+  return {
+    jobId,
+    promise: run({
+      ...bridgeOptions,
+      jobId,
+      progressInterval: options.progressInterval || 250,
+      hasProgressCallback: options.progress instanceof Function,
+    }).then(
+      (res) => {
+        subscription?.remove();
+        return res;
+      },
+      (err) => {
+        subscription?.remove();
+        throw err;
+      }
+    ),
+  };
+};
+
 const MediaStore = {
   createMediaFile(fileDescriptor: FileDescriptor, mediatype: MediaCollections): Promise<string> {
     if (!fileDescriptor.parentFolder) fileDescriptor.parentFolder = '';
@@ -136,12 +254,107 @@ const MediaStore = {
     return RNFSMediaStoreManager.updateMediaFile(uri, fileDescriptor, mediatype);
   },
 
-  writeToMediaFile(uri: string, path: string): Promise<void> {
-    return RNFSMediaStoreManager.writeToMediaFile(uri, normalizeFilePath(path), false);
+  writeToMediaFile(uri: string, path: string, options: MediaStoreWriteOptions = {}): Promise<MediaStoreWriteResult> {
+    return withMediaStoreProgress(options, (bridgeOptions) =>
+      RNFSMediaStoreManager.writeToMediaFile(uri, normalizeFilePath(path), false, bridgeOptions)
+    );
+  },
+
+  copyToMediaStore(
+    fileDescriptor: FileDescriptor,
+    mediatype: MediaCollections,
+    path: string,
+    options: MediaStoreWriteOptions = {}
+  ): Promise<string> {
+    return withMediaStoreProgress(options, (bridgeOptions) =>
+      RNFSMediaStoreManager.copyToMediaStore(fileDescriptor, mediatype, normalizeFilePath(path), bridgeOptions)
+    );
+  },
+
+  copyManyToMediaStore(
+    items: MediaStoreCopyItem[],
+    options: MediaStoreBatchOptions = {},
+  ): Promise<MediaStoreCopyResult[]> {
+    return RNFSMediaStoreManager.copyManyToMediaStore(
+      items.map((item) => ({
+        ...item,
+        fileDescriptor: { ...item.fileDescriptor, parentFolder: item.fileDescriptor.parentFolder || '' },
+        path: normalizeFilePath(item.path),
+      })),
+      options,
+    );
+  },
+
+  updateMany(items: MediaStoreUpdateItem[]): Promise<MediaStoreBatchResult[]> {
+    return RNFSMediaStoreManager.updateMany(items);
+  },
+
+  deleteMany(uris: string[]): Promise<MediaStoreBatchResult[]> {
+    return RNFSMediaStoreManager.deleteMany(uris);
+  },
+
+  openMediaWriter(
+    fileDescriptor: FileDescriptor,
+    mediatype: MediaCollections,
+    options: MediaWriterOptions = {}
+  ): Promise<MediaWriter> {
+    return RNFSMediaStoreManager.openMediaWriter(
+      { ...fileDescriptor, parentFolder: fileDescriptor.parentFolder || '' },
+      mediatype,
+      options
+    ).then(({ writerId, uri }: { writerId: number; uri: string }) => ({
+      writerId,
+      uri,
+      write(contents: string, encoding: Encoding = 'base64'): Promise<number> {
+        return RNFSMediaStoreManager.writeChunk(writerId, encodeContents(contents, encoding));
+      },
+      commit(): Promise<MediaWriterCommitResult> {
+        return RNFSMediaStoreManager.commitMediaWriter(writerId);
+      },
+      abort(): Promise<void> {
+        return RNFSMediaStoreManager.abortMediaWriter(writerId);
+      },
+    }));
+  },
+
+  list(options: MediaStoreListOptions): Promise<MediaStoreListResult> {
+    return RNFSMediaStoreManager.list(options);
+  },
+
+  watchMediaStore(
+    mediatype: MediaCollections,
+    onChange: (event: MediaStoreChangeEvent) => void,
+    options: MediaStoreWatchOptions = {}
+  ): Promise<MediaStoreWatchSubscription> {
+    const watchId = getJobId();
+    const subscription = RNFS_NativeEventEmitter.addListener('MediaStoreChanged', (res) => {
+      if (res.watchId === watchId) {
+        onChange(res);
+      }
+    });
+    const remove = () => {
+      subscription.remove();
+      RNFSMediaStoreManager.unwatchMediaStore(watchId);
+    };
+
+    return RNFSMediaStoreManager.watchMediaStore(watchId, mediatype, options).then(
+      () => ({ watchId, remove }),
+      (err: any) => {
+        subscription.remove();
+        throw err;
+      }
+    );
+  },
+
+  getThumbnail(uriOrPath: string, options: ThumbnailOptions = {}): Promise<string> {
+    return RNFSMediaStoreManager.getThumbnail(
+      uriOrPath.startsWith('content://') ? uriOrPath : normalizeFilePath(uriOrPath),
+      options
+    );
   },
 
-  copyToMediaStore(fileDescriptor: FileDescriptor, mediatype: MediaCollections, path: string): Promise<string> {
-    return RNFSMediaStoreManager.copyToMediaStore(fileDescriptor, mediatype, normalizeFilePath(path));
+  setThumbnailCacheSize(maxBytes: number): void {
+    RNFSMediaStoreManager.setThumbnailCacheSize(maxBytes);
   },
 
   queryMediaStore(searchOptions: MediaStoreSearchOptions): Promise<MediaStoreQueryResult> {
@@ -158,6 +371,50 @@ const MediaStore = {
   MEDIA_DOWNLOAD: 'Download' as MediaCollections,
 };
 
+const Cache = {
+  registerRegion(name: string, options: CacheRegionOptions = {}): Promise<CacheStats> {
+    return RNFSManager.registerCacheRegion(name, options);
+  },
+
+  get(region: string, key: string): Promise<string | null> {
+    return RNFSManager.cacheGet(region, key);
+  },
+
+  put(region: string, key: string, filepath: string, options: CachePutOptions = {}): Promise<string> {
+    return RNFSManager.cachePut(region, key, normalizeFilePath(filepath), options);
+  },
+
+  remove(region: string, key: string): Promise<boolean> {
+    return RNFSManager.cacheRemove(region, key);
+  },
+
+  clear(region: string): Promise<void> {
+    return RNFSManager.cacheClear(region);
+  },
+
+  getStats(region: string): Promise<CacheStats> {
+    return RNFSManager.getCacheStats(region);
+  },
+};
+
+const Store = {
+  storeByHash(filepath: string): Promise<StoreResult> {
+    return RNFSManager.storeByHash(normalizeFilePath(filepath));
+  },
+
+  materialize(hash: string, destPath: string, options: MaterializeOptions = {}): Promise<MaterializeResult> {
+    return RNFSManager.materialize(hash, normalizeFilePath(destPath), options);
+  },
+
+  gc(): Promise<StoreGcResult> {
+    return RNFSManager.gcStore();
+  },
+
+  getStats(): Promise<StoreStats> {
+    return RNFSManager.getStoreStats();
+  },
+};
+
 export default {
   mkdir(filepath: string, options: MkdirOptions = {}): Promise<undefined> {
     return RNFSManager.mkdir(normalizeFilePath(filepath), options).then(() => void 0);
@@ -171,6 +428,19 @@ export default {
     return RNFSManager.copyFile(normalizeFilePath(filepath), normalizeFilePath(destPath), options).then(() => void 0);
   },
 
+  link(existingPath: string, newPath: string): Promise<void> {
+    return RNFSManager.link(normalizeFilePath(existingPath), normalizeFilePath(newPath));
+  },
+
+  symlink(target: string, path: string): Promise<void> {
+    // A relative target is resolved against the link's directory, keep it as is.
+    return RNFSManager.symlink(target, normalizeFilePath(path));
+  },
+
+  readlink(path: string): Promise<string> {
+    return RNFSManager.readlink(normalizeFilePath(path));
+  },
+
   getFSInfo(): Promise<FSInfoResult> {
     return RNFSManager.getFSInfo();
   },
@@ -191,6 +461,22 @@ export default {
     RNFSManager.stopDownload(jobId);
   },
 
+  preconnect(url: string, options: PreconnectOptions = {}): Promise<PreconnectResult> {
+    return RNFSManager.preconnect(url, options);
+  },
+
+  setDownloadBandwidthBudget(bytesPerSecond: number): void {
+    RNFSManager.setDownloadBandwidthBudget(bytesPerSecond);
+  },
+
+  setDownloadRateLimit(jobId: number, bytesPerSecond: number): void {
+    RNFSManager.setDownloadRateLimit(jobId, bytesPerSecond);
+  },
+
+  getDownloadStats(): Promise<DownloadStats> {
+    return RNFSManager.getDownloadStats();
+  },
+
   resumeDownload(jobId: number): void {
     RNFSManager.resumeDownload(jobId);
   },
@@ -239,11 +525,21 @@ export default {
       return getArrayBuffer(filepath);
     }
 
-    return RNFSManager.readFile(normalizeFilePath(filepath)).then((b64: string) => {
+    if (usesNativeEncoding(options)) {
+      return RNFSManager.readFile(normalizeFilePath(filepath), { ...options, contentEncoding: options.encoding });
+    }
+
+    return RNFSManager.readFile(normalizeFilePath(filepath), ...androidOptions(options)).then((b64: string) => {
       return decodeContents(b64, options.encoding);
     });
   },
 
+  readFileAsBlob(filepath: string, options: ReadBlobOptions = {}): Promise<Blob> {
+    return RNFSManager.readFileAsBlob(normalizeFilePath(filepath), options).then((data: any) =>
+      BlobManager.createFromOptions(data)
+    );
+  },
+
   read(
     filepath: string,
     length: number = 0,
@@ -263,16 +559,31 @@ export default {
 
   writeFile(filepath: string, contents: string, encodingOrOptions?: EncodingOrOptions): Promise<void> {
     const options = parseOptions(encodingOrOptions);
+
+    if (usesNativeEncoding(options)) {
+      return RNFSManager.writeFile(normalizeFilePath(filepath), contents, { ...options, contentEncoding: options.encoding });
+    }
+
     const b64 = encodeContents(contents, options.encoding);
 
     return RNFSManager.writeFile(normalizeFilePath(filepath), b64, options);
   },
 
+  writeFileFromBlob(filepath: string, blob: Blob, options: WriteBlobOptions = {}): Promise<void> {
+    // @ts-ignore - data is React Native's blob descriptor
+    return RNFSManager.writeFileFromBlob(normalizeFilePath(filepath), blob.data, options);
+  },
+
   appendFile(filepath: string, contents: string, encodingOrOptions?: EncodingOrOptions): Promise<void> {
     const options = parseOptions(encodingOrOptions);
+
+    if (usesNativeEncoding(options)) {
+      return RNFSManager.appendFile(normalizeFilePath(filepath), contents, { ...options, contentEncoding: options.encoding });
+    }
+
     const b64 = encodeContents(contents, options.encoding);
 
-    return RNFSManager.appendFile(normalizeFilePath(filepath), b64);
+    return RNFSManager.appendFile(normalizeFilePath(filepath), b64, ...androidOptions(options));
   },
 
   write(filepath: string, contents: string, position?: number, encodingOrOptions?: EncodingOrOptions): Promise<null> {
@@ -326,7 +637,16 @@ export default {
     const bridgeOptions = {
       jobId: jobId,
       fromUrl: options.fromUrl,
-      toFile: normalizeFilePath(options.toFile),
+      toFile: normalizeFilePath(options.toFile || ''),
+      mediaStore: options.mediaStore
+        ? { ...options.mediaStore, parentFolder: options.mediaStore.parentFolder || '' }
+        : null,
+      conditional: !!options.conditional,
+      coalesce: !!options.coalesce,
+      decompress: !!options.decompress,
+      transformFile: !!options.transformFile,
+      throttled: !!options.throttled,
+      maxBytesPerSecond: options.maxBytesPerSecond || 0,
       headers: options.headers || {},
       background: !!options.background,
       progressDivider: options.progressDivider || 0,
@@ -352,6 +672,67 @@ export default {
     };
   },
 
+  uploadFiles(options: UploadFileOptions): UploadFileResult {
+    const jobId = getJobId();
+    let subscriptions: EmitterSubscription[] = [];
+
+    if (options.begin) {
+      subscriptions.push(
+        RNFS_NativeEventEmitter.addListener('UploadBegin', (res) => {
+          if (res.jobId === jobId) {
+            // @ts-ignore
+            options.begin(res);
+          }
+        })
+      );
+    }
+
+    if (options.progress) {
+      subscriptions.push(
+        RNFS_NativeEventEmitter.addListener('UploadProgress', (res) => {
+          if (res.jobId === jobId) {
+            // @ts-ignore
+            options.progress(res);
+          }
+        })
+      );
+    }
+
+    const bridgeOptions = {
+      jobId: jobId,
+      toUrl: options.toUrl,
+      files: options.files.map((file) => ({ ...file, filepath: normalizeFilePath(file.filepath) })),
+      binaryStreamOnly: !!options.binaryStreamOnly,
+      headers: options.headers || {},
+      fields: options.fields || {},
+      method: options.method || 'POST',
+      chunked: !!options.chunked,
+      progressInterval: options.progressInterval || 0,
+      readTimeout: options.readTimeout || 15000,
+      connectionTimeout: options.connectionTimeout || 5000,
+      hasBeginCallback: options.begin instanceof Function,
+      hasProgressCallback: options.progress instanceof Function,
+    };
+
+    return {
+      jobId,
+      promise: RNFSManager.uploadFiles(bridgeOptions).then(
+        (res: any) => {
+          subscriptions.forEach((sub) => sub.remove());
+          return res;
+        },
+        (err: any) => {
+          subscriptions.forEach((sub) => sub.remove());
+          throw err;
+        }
+      ),
+    };
+  },
+
+  stopUpload(jobId: number): void {
+    RNFSManager.stopUpload(jobId);
+  },
+
   touch(filepath: string, mtime?: Date, ctime?: Date): Promise<void> {
     let ctimeTime: undefined | number = 0;
     if (Platform.OS === 'ios') {
@@ -360,11 +741,91 @@ export default {
     return RNFSManager.touch(normalizeFilePath(filepath), mtime && mtime.getTime(), ctimeTime);
   },
 
+  watch(path: string, onChange: (event: WatchEvent) => void, options: WatchOptions = {}): Promise<WatchSubscription> {
+    const watchId = getJobId();
+    const subscription = RNFS_NativeEventEmitter.addListener('FileWatchEvent', (res) => {
+      if (res.watchId === watchId) {
+        onChange(res);
+      }
+    });
+    const remove = () => {
+      subscription.remove();
+      RNFSManager.unwatch(watchId);
+    };
+
+    return RNFSManager.watch(watchId, normalizeFilePath(path), options).then(
+      ({ directories }: { directories: number }) => ({ watchId, directories, remove }),
+      (err: any) => {
+        subscription.remove();
+        throw err;
+      }
+    );
+  },
+
+  unzip(zipPath: string, destDir: string, options: UnzipOptions = {}): ZipJobResult {
+    const bridgeOptions: Record<string, any> = { overwrite: options.overwrite !== false };
+    if (options.concurrency) {
+      bridgeOptions.concurrency = options.concurrency;
+    }
+
+    return startZipJob(options, bridgeOptions, (opts) =>
+      RNFSManager.unzip(normalizeFilePath(zipPath), normalizeFilePath(destDir), opts)
+    );
+  },
+
+  zip(sourceDir: string, zipPath: string, options: ZipOptions = {}): ZipJobResult {
+    const bridgeOptions: Record<string, any> = {};
+    if (options.level !== undefined) {
+      bridgeOptions.level = options.level;
+    }
+
+    return startZipJob(options, bridgeOptions, (opts) =>
+      RNFSManager.zip(normalizeFilePath(sourceDir), normalizeFilePath(zipPath), opts)
+    );
+  },
+
+  stopZip(jobId: number): void {
+    RNFSManager.stopZip(jobId);
+  },
+
   scanFile(path: string): Promise<string[]> {
     return RNFSManager.scanFile(path);
   },
 
+  scanFiles(paths: string[], options: ScanFilesOptions = {}): Promise<ScanFileResult[]> {
+    const jobId = getJobId();
+    let subscription: EmitterSubscription | undefined;
+
+    if (options.progress) {
+      subscription = RNFS_NativeEventEmitter.addListener('ScanProgress', (res) => {
+        if (res.jobId === jobId) {
+          // @ts-ignore
+          options.progress(res);
+        }
+      });
+    }
+
+    const bridgeOptions = {
+      jobId,
+      timeout: options.timeout || 30000,
+      hasProgressCallback: options.progress instanceof Function,
+    };
+
+    return RNFSManager.scanFiles(paths.map(normalizeFilePath), options.mimeTypes || [], bridgeOptions).then(
+      (res: ScanFileResult[]) => {
+        subscription?.remove();
+        return res;
+      },
+      (err: any) => {
+        subscription?.remove();
+        throw err;
+      }
+    );
+  },
+
   MediaStore,
+  Cache,
+  Store,
 
   MainBundlePath: RNFSManager.RNFSMainBundlePath as String,
   CachesDirectoryPath: RNFSManager.RNFSCachesDirectoryPath as String,
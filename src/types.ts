@@ -5,6 +5,8 @@ export type MkdirOptions = {
 
 export type FileOptions = {
   NSFileProtectionKey?: string; // iOS only
+  transformFile?: boolean; // Pass the data through the native shared file transformer (Android only)
+  preferLink?: boolean; // copyFile makes a hard link when both paths are on the same volume (Android only)
 };
 
 export type ReadDirItem = {
@@ -35,7 +37,14 @@ export type Fields = { [name: string]: string };
 
 export type DownloadFileOptions = {
   fromUrl: string; // URL to download file from
-  toFile: string; // Local filesystem path to save the file to
+  toFile: string; // Local filesystem path to save the file to (ignored when mediaStore is set)
+  mediaStore?: DownloadMediaStoreTarget; // Stream the download straight into a new MediaStore entry (Android only)
+  throttled?: boolean; // Count the transfer against the budget set with setDownloadBandwidthBudget (Android only)
+  maxBytesPerSecond?: number; // Per-job rate limit, overrides the shared budget (Android only)
+  transformFile?: boolean; // Pass the body through the native shared file transformer before writing (Android only)
+  decompress?: boolean; // Request gzip/deflate encoding and decode the body while writing toFile (Android only)
+  coalesce?: boolean; // Share one transfer with in-flight downloads of the same URL, headers and transfer options, ignored for throttled downloads (Android only)
+  conditional?: boolean; // Skip the transfer when toFile is still current per the last ETag/Last-Modified (Android only)
   headers?: Headers; // An object of headers to be passed to the server
   background?: boolean; // Continue the download in the background after the app terminates (iOS only)
   discretionary?: boolean; // Allow the OS to control the timing and speed of the download to improve perceived performance  (iOS only)
@@ -50,6 +59,21 @@ export type DownloadFileOptions = {
   backgroundTimeout?: number; // Maximum time (in milliseconds) to download an entire resource (iOS only, useful for timing out background downloads)
 };
 
+export type DownloadMediaStoreTarget = FileDescriptor & {
+  mediaType: MediaCollections;
+};
+
+export type PreconnectOptions = {
+  connectionTimeout?: number;
+  readTimeout?: number;
+};
+
+export type PreconnectResult = {
+  statusCode: number; // The HTTP status code of the warm-up HEAD request
+  dnsMillis: number; // Time spent resolving the host
+  connectMillis: number; // Time spent opening the connection (and TLS handshake)
+};
+
 export type DownloadBeginCallbackResult = {
   jobId: number; // The download jobId, required if one wishes to cancel the download. See `stopDownload`.
   statusCode: number; // The HTTP status code
@@ -61,24 +85,228 @@ export type DownloadProgressCallbackResult = {
   jobId: number; // The download jobId, required if one wishes to cancel the download. See `stopDownload`.
   contentLength: number; // The total size in bytes of the download resource
   bytesWritten: number; // The number of bytes written to the file so far
+  bytesReceived?: number; // The number of bytes received over the network so far, differs from bytesWritten when decompressing (Android only)
 };
 
 export type DownloadResult = {
   jobId: number; // The download jobId, required if one wishes to cancel the download. See `stopDownload`.
   statusCode: number; // The HTTP status code
   bytesWritten: number; // The number of bytes written to the file
+  bytesReceived?: number; // The number of bytes received over the network (Android only)
+  mediaUri?: string; // The content URI of the committed MediaStore entry when mediaStore was set (Android only)
+  notModified?: boolean; // The server answered 304 to a conditional download and toFile was kept (Android only)
+  metrics?: DownloadMetrics; // Timings of the job (Android only)
 };
 
+export type DownloadMetrics = {
+  queueWaitMillis: number; // Time between the request and the job starting
+  dnsMillis: number; // Time spent resolving the host
+  connectMillis: number; // Time spent opening the connection (and TLS handshake)
+  firstByteMillis: number; // Time from the job starting until the response headers arrived
+  transferMillis: number; // Time spent transferring the body
+  bytes: number; // Bytes written
+  throughput: number; // Average body throughput in bytes per second
+}; // Phases that did not happen are reported as -1
+
+export type DownloadStats = {
+  activeJobs: number; // Jobs currently running
+  completedJobs: number; // Jobs that finished successfully
+  failedJobs: number; // Jobs that failed or were stopped
+  totalBytes: number; // Body bytes written by finished jobs
+  totalTransferMillis: number; // Time spent transferring bodies by finished jobs
+  averageQueueWaitMillis: number;
+  averageDnsMillis: number;
+  averageConnectMillis: number;
+  averageFirstByteMillis: number;
+  averageThroughput: number; // Bytes per second over all finished transfers
+}; // Averages are -1 until a job reached the phase
+
 export type DownloadFileResult = {
   jobId: number;
   promise: Promise<DownloadResult>;
 };
 
+export type UploadFileItem = {
+  name: string; // Name of the form field
+  filename: string; // Name of the file sent to the server
+  filepath: string; // Path or content URI of the file to upload
+  filetype?: string; // The mimetype of the file, defaults to application/octet-stream
+};
+
+export type UploadFileOptions = {
+  toUrl: string; // URL to upload file to
+  files: UploadFileItem[]; // An array of objects with the file information to be uploaded
+  binaryStreamOnly?: boolean; // Send the single file as the raw request body instead of multipart/form-data
+  headers?: Headers; // An object of headers to be passed to the server
+  fields?: Fields; // An object of fields to be passed to the server
+  method?: string; // Default is 'POST', supports 'POST' and 'PUT'
+  chunked?: boolean; // Always use chunked transfer encoding, otherwise only when a file size is unknown
+  progressInterval?: number; // Minimum milliseconds between progress events, defaults to 100
+  connectionTimeout?: number;
+  readTimeout?: number;
+  begin?: (res: UploadBeginCallbackResult) => void;
+  progress?: (res: UploadProgressCallbackResult) => void;
+};
+
+export type UploadBeginCallbackResult = {
+  jobId: number; // The upload jobId, required if one wishes to cancel the upload. See `stopUpload`.
+};
+
+export type UploadProgressCallbackResult = {
+  jobId: number; // The upload jobId, required if one wishes to cancel the upload. See `stopUpload`.
+  totalBytesExpectedToSend: number; // The total number of bytes that will be sent to the server, -1 when unknown
+  totalBytesSent: number; // The number of bytes sent to the server
+};
+
+export type UploadResult = {
+  jobId: number; // The upload jobId, required if one wishes to cancel the upload. See `stopUpload`.
+  statusCode: number; // The HTTP status code
+  headers: Headers; // The HTTP response headers from the server
+  body: string; // The HTTP response body
+  bytesSent: number; // The number of bytes sent to the server
+};
+
+export type UploadFileResult = {
+  jobId: number;
+  promise: Promise<UploadResult>;
+};
+
 export type FSInfoResult = {
   totalSpace: number; // The total amount of storage space on the device (in bytes).
   freeSpace: number; // The amount of available storage space on the device (in bytes).
 };
 
+export type WatchEventType = 'create' | 'modify' | 'delete' | 'attrib';
+
+export type WatchOptions = {
+  recursive?: boolean; // Also watch every subdirectory, including ones created later (default false)
+  events?: WatchEventType[]; // default ['create', 'modify', 'delete']
+  window?: number; // Events are collected for this many milliseconds and delivered together (default 250)
+  maxDirectories?: number; // Most directories watched at once when recursive (default 256)
+};
+
+export type WatchEvent = {
+  watchId: number;
+  changes: { path: string; events: WatchEventType[] }[];
+  overflow: boolean; // Too many paths changed to list them, re-read the directory instead
+  directoryLimitReached: boolean; // Some subdirectories are not watched because of maxDirectories
+};
+
+export type WatchSubscription = {
+  watchId: number;
+  directories: number; // The number of directories being watched
+  remove: () => void;
+};
+
+export type CacheRegionOptions = {
+  maxBytes?: number; // Evict least recently used entries above this total size (0 = no limit)
+  maxEntries?: number; // Evict least recently used entries above this count (0 = no limit)
+};
+
+export type CachePutOptions = {
+  move?: boolean; // Move the file into the cache instead of copying it
+};
+
+export type CacheStats = {
+  path: string; // The directory holding the region's files
+  bytes: number;
+  entries: number;
+  maxBytes: number;
+  maxEntries: number;
+};
+
+export type StoreResult = {
+  hash: string; // SHA-256 of the content, hex encoded
+  size: number;
+  deduplicated: boolean; // The content was already stored and the file was removed
+};
+
+export type MaterializeOptions = {
+  copy?: boolean; // Always make a writable copy instead of a hard link
+};
+
+export type MaterializeResult = {
+  path: string;
+  linked: boolean; // False when the destination had to be copied, ie on another volume
+};
+
+export type StoreGcResult = {
+  removedBlobs: number;
+  removedReferences: number;
+  freedBytes: number;
+};
+
+export type StoreStats = {
+  blobs: number;
+  references: number;
+  bytes: number; // Size of the stored content
+  savedBytes: number; // Bytes not spent on duplicates thanks to hard links
+};
+
+export type UnzipOptions = {
+  concurrency?: number; // Number of entries inflated and written at the same time (default min(4, CPU cores))
+  overwrite?: boolean; // Replace existing files, otherwise they are skipped (default true)
+  progressInterval?: number; // Minimum milliseconds between progress events (default 250)
+  progress?: (res: ZipProgressResult) => void;
+};
+
+export type ZipOptions = {
+  level?: number; // Deflate level from 0 (store) to 9 (smallest), -1 for the default
+  progressInterval?: number; // Minimum milliseconds between progress events (default 250)
+  progress?: (res: ZipProgressResult) => void;
+};
+
+export type ZipProgressResult = {
+  jobId: number;
+  bytesWritten: number; // Uncompressed bytes processed so far
+  totalBytes: number;
+  entriesWritten: number;
+  totalEntries: number;
+};
+
+export type ZipResult = {
+  jobId: number;
+  entries: number; // Files written
+  skipped: number; // Existing files kept because overwrite was false
+  bytesWritten: number;
+};
+
+export type ZipJobResult = {
+  jobId: number;
+  promise: Promise<ZipResult>;
+};
+
+export type ScanFilesOptions = {
+  mimeTypes?: (string | null)[]; // One entry per path, null lets the scanner infer it from the extension
+  timeout?: number; // Resolve after this many milliseconds even if some paths were not reported (default 30000)
+  progress?: (res: ScanProgressResult) => void;
+};
+
+export type ScanProgressResult = {
+  jobId: number;
+  path: string;
+  uri: string | null;
+  completed: number;
+  total: number;
+};
+
+export type ScanFileResult = {
+  path: string;
+  uri: string | null; // null when the scanner skipped the path or did not report it before the timeout
+};
+
+export type ReadBlobOptions = {
+  position?: number; // Read length bytes starting at position instead of the whole file
+  length?: number;
+  type?: string; // The mime type of the returned Blob
+  transformFile?: boolean; // Only applies when the whole file is read
+};
+
+export type WriteBlobOptions = {
+  append?: boolean; // Append to the file instead of replacing it
+  transformFile?: boolean;
+};
+
 export type FileDescriptor = {
   name: string;
   parentFolder: string;
@@ -96,7 +324,126 @@ export type MediaStoreQueryResult = {
   contentUri: string;
 };
 
-export type Encoding = 'utf8' | 'base64' | 'ascii' | 'arraybuffer';
+export type MediaStoreColumn =
+  | 'id'
+  | 'uri'
+  | 'name'
+  | 'relativePath'
+  | 'mimeType'
+  | 'size'
+  | 'dateAdded'
+  | 'dateModified'
+  | 'dateTaken'
+  | 'width'
+  | 'height'
+  | 'duration'
+  | 'orientation';
+
+export type MediaStoreListOptions = {
+  mediaType: MediaCollections;
+  relativePath?: string; // Only list files in this folder of the collection
+  mimeTypes?: string[]; // ie ['image/jpeg', 'video/*']
+  sortBy?: MediaStoreColumn; // default 'dateModified'
+  sortOrder?: 'asc' | 'desc'; // default 'desc'
+  limit?: number; // default 100
+  offset?: number; // default 0
+  columns?: MediaStoreColumn[]; // default ['id', 'uri', 'name', 'mimeType', 'size', 'dateModified']
+};
+
+export type MediaStoreListResult = {
+  rows: Partial<Record<MediaStoreColumn, string | number | null>>[];
+  total: number;
+  offset: number;
+  hasMore: boolean;
+};
+
+export type MediaStoreWatchOptions = {
+  debounce?: number; // Quiet period in milliseconds before a batch of changes is delivered (default 500)
+  maxWait?: number; // Longest time in milliseconds a change is held back while changes keep arriving (default 5000)
+};
+
+export type MediaStoreChangeEvent = {
+  watchId: number;
+  mediaType: MediaCollections;
+  generation: number; // Incremented with every delivered batch
+  uris: string[]; // The changed content URIs, empty when the system did not report them
+  overflow: boolean; // True when too many URIs changed to list them, re-read the collection instead
+};
+
+export type MediaStoreWatchSubscription = {
+  watchId: number;
+  remove: () => void;
+};
+
+export type ThumbnailOptions = {
+  width?: number; // default 256
+  height?: number; // default 256
+  quality?: number; // JPEG quality 0 - 100 (default 80)
+};
+
+export type MediaWriterOptions = {
+  transformFile?: boolean; // Pass the written data through the shared file transformer
+};
+
+export type MediaWriter = {
+  writerId: number;
+  uri: string; // The content URI of the pending entry
+  write: (contents: string, encoding?: Encoding) => Promise<number>; // Resolves with the total bytes written so far
+  commit: () => Promise<MediaWriterCommitResult>;
+  abort: () => Promise<void>;
+};
+
+export type MediaWriterCommitResult = {
+  uri: string;
+  bytesWritten: number;
+};
+
+export type MediaStoreWriteOptions = {
+  progress?: (res: MediaStoreWriteProgressResult) => void;
+  progressInterval?: number; // Minimum time between progress events in milliseconds (default 250)
+};
+
+export type MediaStoreWriteProgressResult = {
+  jobId: number;
+  bytesWritten: number;
+  contentLength: number; // The size of the source, -1 when it is unknown
+};
+
+export type MediaStoreWriteResult = {
+  bytesWritten: number;
+};
+
+export type MediaStoreCopyItem = {
+  fileDescriptor: FileDescriptor;
+  mediaType: MediaCollections;
+  path: string;
+};
+
+export type MediaStoreCopyResult = {
+  path: string;
+  success: boolean;
+  uri?: string; // The content URI of the new entry when success is true
+  bytesWritten?: number;
+  error?: string;
+};
+
+export type MediaStoreBatchOptions = {
+  concurrency?: number; // How many files are copied at once (default 4)
+};
+
+export type MediaStoreUpdateItem = {
+  uri: string;
+  fileDescriptor: FileDescriptor;
+  mediaType: MediaCollections;
+};
+
+export type MediaStoreBatchResult = {
+  uri: string;
+  success: boolean;
+  error?: string;
+};
+
+export type Encoding = 'utf8' | 'base64' | 'ascii' | 'latin1' | 'arraybuffer';
 export type EncodingOrOptions = Encoding | Record<string, any>;
 export type ProcessedOptions = Record<string, any | Encoding>;
 export type MediaCollections = 'Audio' | 'Image' | 'Video' | 'Download';